@@ -0,0 +1,10 @@
+package behaviouralPattterns.command;
+
+class AC{
+    public void on(){
+        System.out.println("Turning AC on");
+    }
+    public void off(){
+        System.out.println("Turning AC off");
+    }
+}
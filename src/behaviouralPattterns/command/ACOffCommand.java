@@ -0,0 +1,27 @@
+package behaviouralPattterns.command;
+
+class ACOffCommand implements SwitchCommand{
+    private AC ac;
+    public ACOffCommand(AC ac){
+        this.ac = ac;
+    }
+    @Override
+    public void execute() {
+        ac.off();
+    }
+
+    @Override
+    public void undo() {
+        ac.on();
+    }
+
+    @Override
+    public Object receiver() {
+        return ac;
+    }
+
+    @Override
+    public boolean turnsOn() {
+        return false;
+    }
+}
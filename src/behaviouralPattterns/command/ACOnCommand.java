@@ -0,0 +1,26 @@
+package behaviouralPattterns.command;
+
+class ACOnCommand implements SwitchCommand{
+    private AC ac;
+    public ACOnCommand(AC ac){
+        this.ac = ac;
+    }
+    @Override
+    public void execute() {
+        ac.on();
+    }
+    @Override
+    public void undo() {
+        ac.off();
+    }
+
+    @Override
+    public Object receiver() {
+        return ac;
+    }
+
+    @Override
+    public boolean turnsOn() {
+        return true;
+    }
+}
@@ -0,0 +1,245 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Async invoker: batched, per-receiver dispatch
+ * =================================================================================================================
+ *
+ * RemoteControl.pressButton() runs execute() on the caller thread, so one slow device (Light, AC) blocks whoever
+ * pressed the button. AsyncRemoteControl puts the command into a queue and returns a CompletableFuture right away.
+ *
+ * Every receiver gets its own lane = a lock-free queue (many pressing threads, one draining task at a time) plus a
+ * "scheduled" flag. The first press on an idle lane schedules a drain task on the executor, the drain task runs up to
+ * batchSize commands back to back and then either goes idle or re-schedules itself so that one busy receiver can not
+ * hog an executor thread. So:
+ *      - commands for the same receiver run in press order (only one drain task per lane at any time)
+ *      - commands for different receivers run in parallel on the executor threads
+ *
+ * Presses are recorded in the RemoteControl's history at press time (in press order), so pressUndo() queues the undo
+ * behind the command it undoes on the same lane. The history change and the enqueue happen under one lock, otherwise
+ * an undo could pop a press and reach the lane before the press itself.
+ *
+ * A command with several receivers (a MacroCommand touching the Light and the AC) must not run next to the Light
+ * lane. It is put into every one of its lanes as a barrier: a lane that reaches the barrier parks (keeps its
+ * "scheduled" flag, so presses queue up behind it without starting a drain), the last lane to arrive runs the command
+ * and then restarts all of them. No executor thread ever waits for a barrier. Barriers are enqueued under the press
+ * lock like everything else, so two barriers sharing lanes reach them in the same order and can not deadlock.
+ *
+ * KIM: a command that throws (anything, also an Error) only fails its own future, the lane keeps draining. After
+ * close(), or when the executor rejects the drain task, presses fail with RejectedExecutionException and leave the
+ * history alone.
+ * */
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AsyncRemoteControl implements AutoCloseable{
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final class Task{
+        final Command command;
+        final boolean undo;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // set for a command with several receivers, the same task then sits in each of their lanes
+        final Barrier barrier;
+
+        Task(Command command, boolean undo, int lanes){
+            this.command = command;
+            this.undo = undo;
+            this.barrier = lanes > 1 ? new Barrier(lanes) : null;
+        }
+    }
+
+    private static final class Barrier{
+        private final AtomicInteger missing;
+        private final Queue<Lane> parked = new ConcurrentLinkedQueue<>();
+
+        Barrier(int lanes){
+            this.missing = new AtomicInteger(lanes);
+        }
+
+        // true for the last lane to arrive
+        boolean arrive(){
+            return missing.decrementAndGet() == 0;
+        }
+
+        void resumeParked(){
+            Lane lane;
+            while((lane = parked.poll()) != null){
+                lane.schedule();
+            }
+        }
+    }
+
+    private final class Lane implements Runnable{
+        private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void offer(Task task){
+            queue.offer(task);
+            if(scheduled.compareAndSet(false, true)){
+                schedule();
+            }
+        }
+
+        @Override
+        public void run() {
+            int drained = 0;
+            Task task;
+            while(drained < batchSize && (task = queue.poll()) != null){
+                if(task.barrier != null){
+                    // park with scheduled still set, the last lane to arrive restarts this one
+                    task.barrier.parked.offer(this);
+                    if(task.barrier.arrive()){
+                        runTask(task);
+                        task.barrier.resumeParked();
+                    }
+                    return;
+                }
+                runTask(task);
+                drained++;
+            }
+            if(!queue.isEmpty()){
+                // batch used up, give other lanes a turn
+                schedule();
+                return;
+            }
+            scheduled.set(false);
+            // a press may have slipped in between the last poll and clearing the flag
+            if(!queue.isEmpty() && scheduled.compareAndSet(false, true)){
+                schedule();
+            }
+        }
+
+        // only called while holding scheduled
+        private void schedule(){
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // nobody will drain this lane any more, fail what is queued instead of leaving the futures hanging
+                Task task;
+                while((task = queue.poll()) != null){
+                    if(task.barrier == null){
+                        task.done.completeExceptionally(e);
+                    }
+                    else if(task.barrier.arrive()){
+                        // this lane will not park, but the lanes that did must not wait for it forever
+                        task.done.completeExceptionally(e);
+                        task.barrier.resumeParked();
+                    }
+                }
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private final RemoteControl remote;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int batchSize;
+    private final ConcurrentHashMap<Object, Lane> lanes = new ConcurrentHashMap<>();
+    // history change + enqueue of one press, and closed
+    private final Object pressLock = new Object();
+    private boolean closed;
+
+    public AsyncRemoteControl(RemoteControl remote){
+        this(remote, newDispatcherPool(Runtime.getRuntime().availableProcessors()), true, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsyncRemoteControl(RemoteControl remote, ExecutorService executor, int batchSize){
+        this(remote, executor, false, batchSize);
+    }
+
+    private AsyncRemoteControl(RemoteControl remote, ExecutorService executor, boolean ownsExecutor, int batchSize){
+        if(batchSize < 1){
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.remote = remote;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.batchSize = batchSize;
+    }
+
+    public CompletableFuture<Void> pressButton(int slot){
+        Command command = remote.getCommand(slot);
+        if(command == null){
+            System.out.println("No command assigned to slot " + slot);
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized(pressLock){
+            if(closed){
+                return rejected();
+            }
+            remote.getCommandHistory().push(command);
+            return submit(command, false);
+        }
+    }
+
+    public CompletableFuture<Void> pressUndo(){
+        synchronized(pressLock){
+            if(closed){
+                return rejected();
+            }
+            Command command = remote.getCommandHistory().undo();
+            if(command == null){
+                System.out.println("No commands to undo");
+                return CompletableFuture.completedFuture(null);
+            }
+            return submit(command, true);
+        }
+    }
+
+    private static CompletableFuture<Void> rejected(){
+        return CompletableFuture.failedFuture(new RejectedExecutionException("AsyncRemoteControl is closed"));
+    }
+
+    private CompletableFuture<Void> submit(Command command, boolean undo){
+        Set<Object> receivers = command.receivers();
+        Task task = new Task(command, undo, receivers.size());
+        for(Object receiver : receivers){
+            lanes.computeIfAbsent(receiver, r -> new Lane()).offer(task);
+        }
+        return task.done;
+    }
+
+    private static void runTask(Task task){
+        try {
+            if(task.undo){
+                task.command.undo();
+            }
+            else{
+                task.command.execute();
+            }
+            task.done.complete(null);
+        } catch (Throwable e) {
+            task.done.completeExceptionally(e);
+        }
+    }
+
+    private static ExecutorService newDispatcherPool(int threads){
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "remote-dispatch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        synchronized(pressLock){
+            closed = true;
+        }
+        if(ownsExecutor){
+            executor.shutdown();
+        }
+    }
+}
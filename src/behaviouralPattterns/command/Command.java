@@ -0,0 +1,21 @@
+package behaviouralPattterns.command;
+
+import java.util.Collections;
+import java.util.Set;
+
+interface Command{
+    void execute();
+    void undo();
+
+    // The device this command acts on. Commands for the same receiver must run in order, commands for different
+    // receivers are independent (used by AsyncRemoteControl).
+    default Object receiver(){
+        return this;
+    }
+
+    // Every device this command acts on. More than one for a composite command (MacroCommand), AsyncRemoteControl
+    // then runs it after the earlier commands and before the later commands of all of them.
+    default Set<Object> receivers(){
+        return Collections.singleton(receiver());
+    }
+}
@@ -0,0 +1,34 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Command history: bounded ring buffer with undo/redo
+ * =================================================================================================================
+ *
+ * In version 2 the RemoteControl kept its history in a java.util.Stack. Stack extends Vector, so every push/pop takes
+ * the same monitor, and it never forgets anything, so a remote that runs for days holds every command ever pressed.
+ *
+ * Here the history is a fixed size ring of slots that is allocated once. Positions keep growing, and a position maps
+ * to slot (position & mask). When the ring is full the oldest entry is simply overwritten (evicted).
+ *
+ *      oldest                cursor                 newest redo
+ *        |<---- undo depth ---->|<---- redo depth ---->|
+ *
+ * All three numbers live in one immutable Cursor object behind an AtomicReference, so a press, undo or redo is a
+ * single compareAndSet instead of a lock. A push has to do two things (write the slot + move the cursor), so the
+ * pushing thread publishes a Cursor with the entry "pending" and anyone who sees a pending cursor helps finish the slot
+ * write before doing its own work. Every push wraps the command in a fresh Entry so a slot can never go back to an old
+ * value (no ABA problem), even when the same Command object is pressed again and again.
+ *
+ * KIM: capacity is rounded up to a power of two so that (position & mask) can replace (position % capacity).
+ * */
+
+interface CommandHistory{
+    void push(Command command);
+    // returns the command to undo, or null if there is nothing to undo
+    Command undo();
+    // returns the command to redo, or null if there is nothing to redo
+    Command redo();
+    int undoDepth();
+}
+
@@ -0,0 +1,75 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Benchmark: Stack history (version 2) vs RingBufferCommandHistory
+ * =================================================================================================================
+ *
+ * Every thread runs the same press/press/undo/redo mix against one shared history with a no-op command, so only the
+ * history itself is measured. Run with 1, 4 and 16 threads.
+ *
+ * KIM: this is a plain main() harness with a warm-up round, not JMH, so treat the numbers as relative (Stack vs ring)
+ * and not absolute. For publishable numbers the same loop can be dropped into a JMH @Benchmark with @Threads.
+ * */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+public class CommandHistoryBenchmark {
+    private static final int OPERATIONS_PER_THREAD = 1_000_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    private static final Command NO_OP = new Command() {
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public void undo() {
+        }
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int threads : THREAD_COUNTS){
+            // warm-up
+            run(StackCommandHistory::new, threads);
+            run(() -> new RingBufferCommandHistory(1024), threads);
+
+            long stackNanos = run(StackCommandHistory::new, threads);
+            long ringNanos = run(() -> new RingBufferCommandHistory(1024), threads);
+            System.out.printf("threads=%2d  stack=%8.1f ns/op  ring=%8.1f ns/op%n", threads,
+                    perOperation(stackNanos, threads), perOperation(ringNanos, threads));
+        }
+    }
+
+    private static double perOperation(long nanos, int threads){
+        return (double) nanos / ((long) OPERATIONS_PER_THREAD * threads);
+    }
+
+    private static long run(Supplier<CommandHistory> factory, int threads) throws InterruptedException {
+        CommandHistory history = factory.get();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int t = 0; t < threads; t++){
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for(int i = 0; i < OPERATIONS_PER_THREAD; i += 4){
+                    history.push(NO_OP);
+                    history.push(NO_OP);
+                    history.undo();
+                    history.redo();
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,437 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Command journal: durable history with memory-mapped append-only log + snapshots
+ * =================================================================================================================
+ *
+ * The undo history only lives in memory, so after a restart the remote forgets both the history and what state the
+ * devices were left in. The journal writes every push/undo/redo to disk so both can be rebuilt on startup.
+ *
+ * Pieces:
+ *      CommandRegistry          -> gives every Command a stable int id (commands are objects, the file stores ids)
+ *      CommandJournal           -> journal.log: fixed 8 byte records, appended through memory-mapped chunks
+ *                                  snapshot.bin: the replayed state + the log offset it covers
+ *      JournaledCommandHistory  -> decorator over any CommandHistory that also appends to the journal, plug it into
+ *                                  the RemoteControl(CommandHistory) constructor
+ *
+ * Record format (one long): (commandId << 8) | op, op = EXECUTE(1) / UNDO(2) / REDO(3). op is never 0, so the first
+ * zero long in the (zero-filled) mapped file marks the end of the log, no length header is needed.
+ *
+ * Replay does not call the devices. It runs the records through JournalState, which is just int arrays: a ring of
+ * command ids mirroring the undo/redo history and, per receiver, the last SwitchCommand applied to it. At the end the
+ * caller gets the history back and one command per device to put it in its last known state. Every snapshotInterval
+ * records the state is written to snapshot.bin, so startup only replays the tail of the log.
+ *
+ * KIM: only SwitchCommands can be restored to a device state (their effect does not depend on what ran before).
+ * Other commands (e.g. macros) come back in the history but are not re-run on startup.
+ *
+ * KIM: the receiver index is only the registration order of this run, so snapshot.bin does not store it. Every device
+ * entry is saved as the id of the last SwitchCommand applied to it (ids are stable, the caller picks them) and the
+ * index is looked up again through the registry on load, so registering the devices in another order is harmless.
+ * A snapshot taken with a bigger history than the configured one keeps only the newest entries.
+ * */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// The replayed state, all primitive so that replaying millions of records does not allocate.
+class JournalState{
+    private final int[] history;
+    private final int mask;
+    private long position;
+    private int undoDepth;
+    private int redoDepth;
+    // per receiver: (commandId << 1) | undone, or -1 if nothing was applied yet
+    private int[] deviceState;
+
+    JournalState(int historyCapacity, int receiverCount){
+        int size = Integer.highestOneBit(Math.max(1, historyCapacity));
+        if(size < historyCapacity){
+            size <<= 1;
+        }
+        this.history = new int[size];
+        this.mask = size - 1;
+        this.deviceState = new int[receiverCount];
+        Arrays.fill(deviceState, -1);
+    }
+
+    void apply(int op, int commandId, CommandRegistry registry){
+        int undone;
+        switch (op){
+            case CommandJournal.EXECUTE:
+                history[(int) (position & mask)] = commandId;
+                position++;
+                undoDepth = Math.min(undoDepth + 1, history.length);
+                redoDepth = 0;
+                undone = 0;
+                break;
+            case CommandJournal.UNDO:
+                if(undoDepth > 0){
+                    position--;
+                    undoDepth--;
+                    redoDepth++;
+                }
+                undone = 1;
+                break;
+            case CommandJournal.REDO:
+                if(redoDepth > 0){
+                    position++;
+                    undoDepth++;
+                    redoDepth--;
+                }
+                undone = 0;
+                break;
+            default:
+                throw new IllegalStateException("corrupt journal record, op " + op);
+        }
+        int receiver = registry.switchReceiverOf(commandId);
+        if(receiver >= 0){
+            setDeviceState(receiver, (commandId << 1) | undone);
+        }
+    }
+
+    private void setDeviceState(int receiver, int state){
+        if(receiver >= deviceState.length){
+            int oldSize = deviceState.length;
+            deviceState = Arrays.copyOf(deviceState, Math.max(receiver + 1, oldSize * 2));
+            Arrays.fill(deviceState, oldSize, deviceState.length, -1);
+        }
+        deviceState[receiver] = state;
+    }
+
+    CommandJournal.Recovery toRecovery(CommandRegistry registry){
+        List<Command> undoHistory = new ArrayList<>(undoDepth);
+        for(long p = position - undoDepth; p < position; p++){
+            undoHistory.add(registry.commandOf(history[(int) (p & mask)]));
+        }
+        List<Command> redoHistory = new ArrayList<>(redoDepth);
+        for(long p = position; p < position + redoDepth; p++){
+            redoHistory.add(registry.commandOf(history[(int) (p & mask)]));
+        }
+        List<Command> restore = new ArrayList<>();
+        for(int state : deviceState){
+            if(state >= 0){
+                Command command = registry.commandOf(state >>> 1);
+                restore.add((state & 1) == 0 ? command : new UndoOf(command));
+            }
+        }
+        return new CommandJournal.Recovery(undoHistory, redoHistory, restore);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(history.length);
+        out.writeLong(position);
+        out.writeInt(undoDepth);
+        out.writeInt(redoDepth);
+        for(long p = position - undoDepth; p < position + redoDepth; p++){
+            out.writeInt(history[(int) (p & mask)]);
+        }
+        // only the applied entries, each one is keyed by its command id and not by this run's receiver index
+        int applied = 0;
+        for(int state : deviceState){
+            if(state >= 0){
+                applied++;
+            }
+        }
+        out.writeInt(applied);
+        for(int state : deviceState){
+            if(state >= 0){
+                out.writeInt(state);
+            }
+        }
+    }
+
+    static JournalState readFrom(DataInputStream in, int historyCapacity, CommandRegistry registry) throws IOException {
+        in.readInt(); // capacity the snapshot was written with, the configured one wins
+        JournalState state = new JournalState(historyCapacity, registry.receiverCount());
+        state.position = in.readLong();
+        int undoDepth = in.readInt();
+        int redoDepth = in.readInt();
+        // if the configured depth shrank since the snapshot, drop the oldest undo entries first and only then the
+        // redo entries furthest from the cursor, so the entries next to the cursor survive
+        int drop = Math.max(0, undoDepth + redoDepth - state.history.length);
+        int dropUndo = Math.min(drop, undoDepth);
+        int keepRedo = redoDepth - (drop - dropUndo);
+        for(int i = 0; i < undoDepth; i++){
+            int id = in.readInt();
+            if(i >= dropUndo){
+                state.history[(int) ((state.position - undoDepth + i) & state.mask)] = id;
+            }
+        }
+        for(int i = 0; i < redoDepth; i++){
+            int id = in.readInt();
+            if(i < keepRedo){
+                state.history[(int) ((state.position + i) & state.mask)] = id;
+            }
+        }
+        state.undoDepth = undoDepth - dropUndo;
+        state.redoDepth = keepRedo;
+        int applied = in.readInt();
+        for(int i = 0; i < applied; i++){
+            int deviceState = in.readInt();
+            if(deviceState < 0){
+                continue; // version 1 snapshots also wrote the empty slots
+            }
+            int receiver = registry.switchReceiverOf(deviceState >>> 1);
+            if(receiver < 0){
+                throw new IllegalStateException("snapshot refers to unknown switch command id " + (deviceState >>> 1));
+            }
+            state.setDeviceState(receiver, deviceState);
+        }
+        return state;
+    }
+
+    // Restores the device state left behind by an undo, e.g. undo of LightOnCommand => light off.
+    private static final class UndoOf implements Command{
+        private final Command command;
+
+        UndoOf(Command command){
+            this.command = command;
+        }
+
+        @Override
+        public void execute() {
+            command.undo();
+        }
+
+        @Override
+        public void undo() {
+            command.execute();
+        }
+
+        @Override
+        public Object receiver() {
+            return command.receiver();
+        }
+
+        @Override
+        public Set<Object> receivers() {
+            return command.receivers();
+        }
+    }
+}
+
+class CommandJournal implements AutoCloseable{
+    static final int EXECUTE = 1;
+    static final int UNDO = 2;
+    static final int REDO = 3;
+
+    static final int RECORD_BYTES = Long.BYTES;
+    private static final long CHUNK_BYTES = 64L * 1024 * 1024;
+    private static final int SNAPSHOT_MAGIC = 0x434A534E; // "CJSN"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // What replay gives back: the history (oldest first), redo entries (next redo first) and one command per device.
+    static final class Recovery{
+        final List<Command> undoHistory;
+        final List<Command> redoHistory;
+        final List<Command> deviceState;
+
+        Recovery(List<Command> undoHistory, List<Command> redoHistory, List<Command> deviceState){
+            this.undoHistory = undoHistory;
+            this.redoHistory = redoHistory;
+            this.deviceState = deviceState;
+        }
+    }
+
+    private final Path snapshotFile;
+    private final FileChannel channel;
+    private final CommandRegistry registry;
+    private final long snapshotInterval;
+    private final JournalState state;
+    private final Recovery recovery;
+
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long writeOffset;
+    private long recordsSinceSnapshot;
+
+    private CommandJournal(Path directory, CommandRegistry registry, int historyCapacity, long snapshotInterval)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("snapshot.bin");
+        this.registry = registry;
+        this.snapshotInterval = snapshotInterval;
+        this.channel = FileChannel.open(directory.resolve("journal.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long offset = 0;
+        JournalState loaded = new JournalState(historyCapacity, registry.receiverCount());
+        if(Files.exists(snapshotFile)){
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))){
+                if(in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION){
+                    throw new IOException("unrecognised snapshot file " + snapshotFile);
+                }
+                offset = in.readLong();
+                loaded = JournalState.readFrom(in, historyCapacity, registry);
+            }
+        }
+        this.state = loaded;
+        this.writeOffset = replayFrom(offset);
+        this.recovery = state.toRecovery(registry);
+    }
+
+    public static CommandJournal open(Path directory, CommandRegistry registry, int historyCapacity,
+                                      long snapshotInterval) throws IOException {
+        if(snapshotInterval < 1){
+            throw new IllegalArgumentException("snapshotInterval must be positive: " + snapshotInterval);
+        }
+        return new CommandJournal(directory, registry, historyCapacity, snapshotInterval);
+    }
+
+    // The state rebuilt when the journal was opened.
+    public Recovery recovery(){
+        return recovery;
+    }
+
+    public synchronized void append(int op, Command command){
+        int id = registry.idOf(command);
+        long record = ((long) id << 8) | op;
+        ensureMapped(writeOffset);
+        chunk.putLong((int) (writeOffset - chunkStart), record);
+        writeOffset += RECORD_BYTES;
+        state.apply(op, id, registry);
+        if(++recordsSinceSnapshot >= snapshotInterval){
+            snapshot();
+        }
+    }
+
+    // Flushes the log and writes a snapshot covering everything appended so far.
+    public synchronized void snapshot(){
+        try {
+            if(chunk != null){
+                chunk.force();
+            }
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(writeOffset);
+                state.writeTo(out);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not write journal snapshot", e);
+        }
+    }
+
+    // Replays records from offset until the first empty record, returns the offset to continue appending at.
+    private long replayFrom(long offset){
+        long end = channelSize();
+        while(offset + RECORD_BYTES <= end){
+            ensureMapped(offset);
+            long record = chunk.getLong((int) (offset - chunkStart));
+            if(record == 0){
+                break;
+            }
+            state.apply((int) (record & 0xFF), (int) (record >>> 8), registry);
+            offset += RECORD_BYTES;
+        }
+        return offset;
+    }
+
+    private void ensureMapped(long offset){
+        if(chunk != null && offset >= chunkStart && offset < chunkStart + CHUNK_BYTES){
+            return;
+        }
+        try {
+            if(chunk != null){
+                chunk.force();
+            }
+            long start = offset - (offset % CHUNK_BYTES);
+            // mapping past the end grows the file, the new region reads as zeros
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_BYTES);
+            chunkStart = start;
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not map journal at offset " + offset, e);
+        }
+    }
+
+    private long channelSize(){
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        snapshot();
+        channel.close();
+    }
+}
+
+// Decorator: the same history, but every change is also written to the journal. One lock keeps the journal order
+// identical to the history order, this is the price of durability (RemoteControl without a journal stays lock-free).
+class JournaledCommandHistory implements CommandHistory{
+    private final CommandHistory delegate;
+    private final CommandJournal journal;
+
+    public JournaledCommandHistory(CommandHistory delegate, CommandJournal journal){
+        this.delegate = delegate;
+        this.journal = journal;
+        CommandJournal.Recovery recovery = journal.recovery();
+        for(Command command : recovery.undoHistory){
+            delegate.push(command);
+        }
+        for(Command command : recovery.redoHistory){
+            delegate.push(command);
+        }
+        for(int i = 0; i < recovery.redoHistory.size(); i++){
+            delegate.undo();
+        }
+    }
+
+    // Puts every device back into the state it was in when the journal was last written.
+    public void restoreDevices(){
+        for(Command command : journal.recovery().deviceState){
+            command.execute();
+        }
+    }
+
+    @Override
+    public synchronized void push(Command command) {
+        journal.append(CommandJournal.EXECUTE, command);
+        delegate.push(command);
+    }
+
+    @Override
+    public synchronized Command undo() {
+        Command command = delegate.undo();
+        if(command != null){
+            journal.append(CommandJournal.UNDO, command);
+        }
+        return command;
+    }
+
+    @Override
+    public synchronized Command redo() {
+        Command command = delegate.redo();
+        if(command != null){
+            journal.append(CommandJournal.REDO, command);
+        }
+        return command;
+    }
+
+    @Override
+    public int undoDepth() {
+        return delegate.undoDepth();
+    }
+}
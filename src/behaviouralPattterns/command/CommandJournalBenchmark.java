@@ -0,0 +1,74 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Benchmark: CommandJournal append + startup replay of 10M records
+ * =================================================================================================================
+ *
+ * Writes 10M press/undo/redo records for a light and an AC, then reopens the journal twice:
+ *      1) without snapshot.bin -> worst case, the whole log is replayed
+ *      2) with snapshot.bin    -> normal startup, only the tail after the last snapshot is replayed
+ *
+ * KIM: plain main() harness (no JMH in this project), the journal is written to a temp directory that is deleted at
+ * the end.
+ * */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class CommandJournalBenchmark {
+    private static final int RECORDS = 10_000_000;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("command-journal");
+        try {
+            Light light = new Light();
+            AC ac = new AC();
+            Command[] commands = {new LightOnCommand(light), new LightOffCommand(light), new ACOnCommand(ac),
+                    new ACOffCommand(ac)};
+
+            long begin = System.nanoTime();
+            try(CommandJournal journal = CommandJournal.open(directory, registry(commands), 64, RECORDS / 10 + 1)){
+                for(int i = 0; i < RECORDS; i++){
+                    Command command = commands[i & 3];
+                    int op = i % 10 == 9 ? CommandJournal.UNDO : CommandJournal.EXECUTE;
+                    journal.append(op, command);
+                }
+            }
+            System.out.printf("append: %d records in %d ms%n", RECORDS, (System.nanoTime() - begin) / 1_000_000);
+
+            Path snapshot = directory.resolve("snapshot.bin");
+            Path keptSnapshot = directory.resolve("snapshot.keep");
+            Files.move(snapshot, keptSnapshot);
+            timeReplay("full replay (no snapshot)", directory, commands);
+
+            Files.move(keptSnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            timeReplay("snapshot + tail replay", directory, commands);
+        } finally {
+            try(Stream<Path> files = Files.walk(directory)){
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void timeReplay(String label, Path directory, Command[] commands) throws IOException {
+        long begin = System.nanoTime();
+        CommandJournal journal = CommandJournal.open(directory, registry(commands), 64, Long.MAX_VALUE);
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        System.out.printf("%s: %d ms, history depth %d, devices to restore %d%n", label, millis,
+                journal.recovery().undoHistory.size(), journal.recovery().deviceState.size());
+        journal.close();
+    }
+
+    private static CommandRegistry registry(Command[] commands){
+        CommandRegistry registry = new CommandRegistry();
+        for(int i = 0; i < commands.length; i++){
+            registry.register(i, commands[i]);
+        }
+        return registry;
+    }
+}
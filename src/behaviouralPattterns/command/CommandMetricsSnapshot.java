@@ -0,0 +1,52 @@
+package behaviouralPattterns.command;
+
+import behaviouralPattterns.metrics.LatencyHistogram;
+import java.util.Collections;
+import java.util.List;
+
+class CommandMetricsSnapshot{
+    static final class TypeStats{
+        final String commandType;
+        final LatencyHistogram.Snapshot execute;
+        final LatencyHistogram.Snapshot undo;
+
+        TypeStats(String commandType, LatencyHistogram.Snapshot execute, LatencyHistogram.Snapshot undo){
+            this.commandType = commandType;
+            this.execute = execute;
+            this.undo = undo;
+        }
+    }
+
+    final List<TypeStats> types;
+    final int undoDepth;
+    final long elapsedNanos;
+
+    CommandMetricsSnapshot(List<TypeStats> types, int undoDepth, long elapsedNanos){
+        this.types = Collections.unmodifiableList(types);
+        this.undoDepth = undoDepth;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String dump(){
+        StringBuilder out = new StringBuilder();
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        out.append(String.format("undo depth: %d%n", undoDepth));
+        out.append(String.format("%-20s %-8s %10s %10s %10s %10s %10s %10s%n",
+                "command", "op", "count", "ops/s", "p50 ns", "p99 ns", "p99.9 ns", "max ns"));
+        for(TypeStats type : types){
+            appendRow(out, type.commandType, "execute", type.execute, seconds);
+            appendRow(out, type.commandType, "undo", type.undo, seconds);
+        }
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, String type, String op, LatencyHistogram.Snapshot histogram,
+                                  double seconds){
+        if(histogram.count == 0){
+            return;
+        }
+        out.append(String.format("%-20s %-8s %10d %10.0f %10d %10d %10d %10d%n", type, op, histogram.count,
+                histogram.count / seconds, histogram.percentile(50), histogram.percentile(99),
+                histogram.percentile(99.9), histogram.max));
+    }
+}
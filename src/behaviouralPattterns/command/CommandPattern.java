@@ -23,127 +23,8 @@ package behaviouralPattterns.command;
  *
  * */
 
-import java.util.Stack;
-
-// Receivers
-class Light{
-    public void on(){
-        System.out.println("Turning light on");
-    }
-
-    public void off(){
-        System.out.println("Turning light off");
-    }
-}
-
-class AC{
-    public void on(){
-        System.out.println("Turning AC on");
-    }
-    public void off(){
-        System.out.println("Turning AC off");
-    }
-}
-
-interface Command{
-    void execute();
-    void undo();
-}
-
-// Concrete commands
-class LightOnCommand implements Command{
-    private Light light;
-
-    public LightOnCommand(Light light){
-        this.light = light;
-    }
-
-    @Override
-    public void execute() {
-        light.on();
-    }
-    @Override
-    public void undo() {
-        light.off();
-    }
-}
-
-class LightOffCommand implements Command{
-    private Light light;
-    public LightOffCommand(Light light){
-        this.light = light;
-    }
-    @Override
-    public void execute() {
-        light.off();
-    }
-    @Override
-    public void undo() {
-        light.on();
-    }
-}
-
-class ACOnCommand implements Command{
-    private AC ac;
-    public ACOnCommand(AC ac){
-        this.ac = ac;
-    }
-    @Override
-    public void execute() {
-        ac.on();
-    }
-    @Override
-    public void undo() {
-        ac.off();
-    }
-}
-
-class ACOffCommand implements Command{
-    private AC ac;
-    public ACOffCommand(AC ac){
-        this.ac = ac;
-    }
-    @Override
-    public void execute() {
-        ac.off();
-    }
-
-    @Override
-    public void undo() {
-        ac.on();
-    }
-}
-
-// Invoker
-// 4 commands
-class RemoteControl{
-    private Command[] buttons = new Command[4];
-    private Stack<Command> commandHistory = new Stack<>();
-
-    public void setCommand(int slot, Command command){
-        buttons[slot] = command;
-    }
-
-    public void pressButton(int slot){
-        if(buttons[slot] != null){
-            buttons[slot].execute();
-            commandHistory.push(buttons[slot]);
-        }
-        else{
-            System.out.println("No command assigned to slot " + slot);
-        }
-    }
-
-    public void pressUndo(){
-        if(!commandHistory.isEmpty()){
-            Command command = commandHistory.pop();
-            command.undo();
-        }
-        else{
-            System.out.println("No commands to undo");
-        }
-    }
-}
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class CommandPattern {
 
@@ -168,6 +49,36 @@ public class CommandPattern {
 
        remote.pressUndo(); // Undo Light OFF => Light ON
        remote.pressUndo(); // UNDO AC ON => AC OFF
+       remote.pressRedo(); // Redo AC ON
+
+       // Macro: 5 scripted commands, light on->off->on collapses to its last "on" and AC on->on to one "on",
+       // so only 2 device calls remain
+       MacroCommand movieNight = MacroCommand.optimized(
+               Arrays.asList(lightOn, acOn, lightOff, acOn, lightOn));
+       System.out.println("Macro removed " + movieNight.eliminatedCalls() + " receiver calls");
+       remote.setCommand(3, movieNight);
+       remote.pressButton(3);
+       remote.pressUndo(); // one undo for the whole macro
+       remote.setCommand(3, acOff);
+
+       // Instrumented remote: same presses, plus latency per command type
+       InstrumentedRemoteControl instrumented = new InstrumentedRemoteControl(new ConsoleMetricsSink());
+       instrumented.setCommand(0, lightOn);
+       instrumented.setCommand(1, acOn);
+       instrumented.pressButton(0);
+       instrumented.pressButton(1);
+       instrumented.pressUndo();
+       instrumented.publishMetrics();
+
+       // Async mode: light and AC commands run in parallel, each device still sees its own presses in order
+       try(AsyncRemoteControl asyncRemote = new AsyncRemoteControl(remote)){
+           CompletableFuture.allOf(
+                   asyncRemote.pressButton(0),  // Light ON
+                   asyncRemote.pressButton(3),  // AC OFF
+                   asyncRemote.pressButton(1),  // Light OFF
+                   asyncRemote.pressUndo()      // Undo Light OFF => Light ON
+           ).join();
+       }
     }
 }
 /*
@@ -0,0 +1,64 @@
+package behaviouralPattterns.command;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+class CommandRegistry{
+    private final Map<Command, Integer> ids = new IdentityHashMap<>();
+    private final Map<Object, Integer> receivers = new IdentityHashMap<>();
+    private Command[] commands = new Command[16];
+    // receiver index of each SwitchCommand id, -1 for ids that are not switch commands
+    private int[] switchReceiver = new int[16];
+
+    public synchronized void register(int id, Command command){
+        if(id < 0){
+            throw new IllegalArgumentException("command id must not be negative: " + id);
+        }
+        if(id < commands.length && commands[id] != null){
+            throw new IllegalArgumentException("command id " + id + " is already registered");
+        }
+        if(ids.containsKey(command)){
+            throw new IllegalArgumentException("command is already registered as " + ids.get(command));
+        }
+        if(id >= commands.length){
+            int size = Math.max(id + 1, commands.length * 2);
+            int oldSize = commands.length;
+            commands = Arrays.copyOf(commands, size);
+            switchReceiver = Arrays.copyOf(switchReceiver, size);
+            Arrays.fill(switchReceiver, oldSize, size, -1);
+        }
+        else if(commands[id] == null){
+            switchReceiver[id] = -1;
+        }
+        commands[id] = command;
+        ids.put(command, id);
+        if(command instanceof SwitchCommand){
+            switchReceiver[id] = receivers.computeIfAbsent(command.receiver(), receiver -> receivers.size());
+        }
+    }
+
+    public synchronized int idOf(Command command){
+        Integer id = ids.get(command);
+        if(id == null){
+            throw new IllegalArgumentException("command is not registered: " + command);
+        }
+        return id;
+    }
+
+    synchronized Command commandOf(int id){
+        Command command = id < commands.length ? commands[id] : null;
+        if(command == null){
+            throw new IllegalStateException("journal refers to unknown command id " + id);
+        }
+        return command;
+    }
+
+    synchronized int switchReceiverOf(int id){
+        return id < switchReceiver.length && commands[id] != null ? switchReceiver[id] : -1;
+    }
+
+    synchronized int receiverCount(){
+        return receivers.size();
+    }
+}
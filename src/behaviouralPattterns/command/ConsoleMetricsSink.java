@@ -0,0 +1,8 @@
+package behaviouralPattterns.command;
+
+class ConsoleMetricsSink implements MetricsSink{
+    @Override
+    public void publish(CommandMetricsSnapshot snapshot) {
+        System.out.print(snapshot.dump());
+    }
+}
@@ -0,0 +1,64 @@
+package behaviouralPattterns.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class InstrumentedRemoteControl extends RemoteControl{
+    private final Map<Class<?>, CommandMetrics> metrics = new ConcurrentHashMap<>();
+    private final MetricsSink sink;
+    private final long startedAt = System.nanoTime();
+
+    public InstrumentedRemoteControl(CommandHistory commandHistory, MetricsSink sink){
+        super(commandHistory);
+        this.sink = sink;
+    }
+
+    public InstrumentedRemoteControl(MetricsSink sink){
+        this(new RingBufferCommandHistory(), sink);
+    }
+
+    @Override
+    protected void execute(Command command) {
+        long start = System.nanoTime();
+        try {
+            super.execute(command);
+        } finally {
+            metricsOf(command).executeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void undo(Command command) {
+        long start = System.nanoTime();
+        try {
+            super.undo(command);
+        } finally {
+            metricsOf(command).undoLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private CommandMetrics metricsOf(Command command){
+        // get() first: computeIfAbsent may lock the bin even when the key is already there
+        CommandMetrics commandMetrics = metrics.get(command.getClass());
+        if(commandMetrics == null){
+            commandMetrics = metrics.computeIfAbsent(command.getClass(), type -> new CommandMetrics());
+        }
+        return commandMetrics;
+    }
+
+    public CommandMetricsSnapshot snapshotMetrics(){
+        List<CommandMetricsSnapshot.TypeStats> types = new ArrayList<>();
+        for(Map.Entry<Class<?>, CommandMetrics> entry : metrics.entrySet()){
+            types.add(new CommandMetricsSnapshot.TypeStats(entry.getKey().getSimpleName(),
+                    entry.getValue().executeLatency.snapshot(), entry.getValue().undoLatency.snapshot()));
+        }
+        types.sort((a, b) -> a.commandType.compareTo(b.commandType));
+        return new CommandMetricsSnapshot(types, getCommandHistory().undoDepth(), System.nanoTime() - startedAt);
+    }
+
+    public void publishMetrics(){
+        sink.publish(snapshotMetrics());
+    }
+}
@@ -0,0 +1,12 @@
+package behaviouralPattterns.command;
+
+// Receivers
+class Light{
+    public void on(){
+        System.out.println("Turning light on");
+    }
+
+    public void off(){
+        System.out.println("Turning light off");
+    }
+}
@@ -0,0 +1,26 @@
+package behaviouralPattterns.command;
+
+class LightOffCommand implements SwitchCommand{
+    private Light light;
+    public LightOffCommand(Light light){
+        this.light = light;
+    }
+    @Override
+    public void execute() {
+        light.off();
+    }
+    @Override
+    public void undo() {
+        light.on();
+    }
+
+    @Override
+    public Object receiver() {
+        return light;
+    }
+
+    @Override
+    public boolean turnsOn() {
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package behaviouralPattterns.command;
+
+// Concrete commands
+class LightOnCommand implements SwitchCommand{
+    private Light light;
+
+    public LightOnCommand(Light light){
+        this.light = light;
+    }
+
+    @Override
+    public void execute() {
+        light.on();
+    }
+    @Override
+    public void undo() {
+        light.off();
+    }
+
+    @Override
+    public Object receiver() {
+        return light;
+    }
+
+    @Override
+    public boolean turnsOn() {
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Macro (composite) command with coalescing
+ * =================================================================================================================
+ *
+ * A MacroCommand is a Command made of other commands, so it can be bound to a RemoteControl slot like any other and
+ * one press = one entry in the undo history. execute() runs the children in order, undo() undoes them in reverse.
+ *
+ * Scripts often flip the same device back and forth (light on -> off -> on), and every flip is a real device call.
+ * MacroCommand.optimized() runs a coalescing pass first:
+ *      - SwitchCommands on the same receiver are merged into one step: execute() = the LAST command of the run and
+ *        undo() = undo of the FIRST command of the run (that is the state the device was in before the macro).
+ *      - a run is never dropped: the device ends in last.turnsOn() whatever state it started in, and that state is
+ *        not known here (off -> on from "on" and off -> on from "off" both must end "on").
+ *      - any command that is not a SwitchCommand (a nested macro, a custom command, ...) is a barrier: it may touch
+ *        any device, so it closes every open run and no switch is moved across it.
+ * Between barriers, switches on different receivers are independent, so only the per-receiver order is kept.
+ *
+ * eliminatedCalls() reports how many receiver calls the pass saved per execute().
+ *
+ * KIM: receivers() is the union of the children's receivers, so AsyncRemoteControl orders the macro against every
+ * device it touches and not just against other presses of the macro.
+ * */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class MacroCommand implements Command{
+    private final List<Command> commands;
+    private final Set<Object> receivers;
+    private final int eliminatedCalls;
+
+    public MacroCommand(List<Command> commands){
+        this(commands, 0);
+    }
+
+    private MacroCommand(List<Command> commands, int eliminatedCalls){
+        this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+        Set<Object> receivers = new LinkedHashSet<>();
+        for(Command command : commands){
+            receivers.addAll(command.receivers());
+        }
+        // an empty macro touches no device, it still needs a lane of its own
+        this.receivers = receivers.isEmpty() ? Collections.singleton(this) : Collections.unmodifiableSet(receivers);
+        this.eliminatedCalls = eliminatedCalls;
+    }
+
+    public static MacroCommand optimized(List<Command> script){
+        List<Command> coalesced = coalesce(script);
+        return new MacroCommand(coalesced, script.size() - coalesced.size());
+    }
+
+    @Override
+    public void execute() {
+        for(Command command : commands){
+            command.execute();
+        }
+    }
+
+    @Override
+    public void undo() {
+        for(int i = commands.size() - 1; i >= 0; i--){
+            commands.get(i).undo();
+        }
+    }
+
+    @Override
+    public Set<Object> receivers() {
+        return receivers;
+    }
+
+    public List<Command> getCommands(){
+        return commands;
+    }
+
+    public int eliminatedCalls(){
+        return eliminatedCalls;
+    }
+
+    // A run of SwitchCommands on one receiver, collapsed to its first and last command.
+    private static final class CoalescedSwitch implements Command{
+        private final SwitchCommand first;
+        private SwitchCommand last;
+
+        CoalescedSwitch(SwitchCommand first){
+            this.first = first;
+            this.last = first;
+        }
+
+        Command collapse(){
+            return first == last ? first : this;
+        }
+
+        @Override
+        public void execute() {
+            last.execute();
+        }
+
+        @Override
+        public void undo() {
+            first.undo();
+        }
+
+        @Override
+        public Object receiver() {
+            return first.receiver();
+        }
+    }
+
+    private static List<Command> coalesce(List<Command> script){
+        // steps keep the position of the first command of each run, open runs are looked up by receiver
+        List<Command> steps = new ArrayList<>(script.size());
+        Map<Object, CoalescedSwitch> openRuns = new HashMap<>();
+        for(Command command : script){
+            if(command instanceof SwitchCommand){
+                CoalescedSwitch run = openRuns.get(command.receiver());
+                if(run == null){
+                    run = new CoalescedSwitch((SwitchCommand) command);
+                    openRuns.put(command.receiver(), run);
+                    steps.add(run);
+                }
+                else{
+                    run.last = (SwitchCommand) command;
+                }
+            }
+            else{
+                // barrier: nothing is moved across it
+                openRuns.clear();
+                steps.add(command);
+            }
+        }
+
+        List<Command> result = new ArrayList<>(steps.size());
+        for(Command step : steps){
+            result.add(step instanceof CoalescedSwitch ? ((CoalescedSwitch) step).collapse() : step);
+        }
+        return result;
+    }
+}
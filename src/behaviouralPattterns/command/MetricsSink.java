@@ -0,0 +1,5 @@
+package behaviouralPattterns.command;
+
+interface MetricsSink{
+    void publish(CommandMetricsSnapshot snapshot);
+}
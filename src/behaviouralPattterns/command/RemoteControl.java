@@ -0,0 +1,77 @@
+package behaviouralPattterns.command;
+
+// Invoker
+// slots are int ids (0..3 for the demo, device ids on big panels), see SlotTable.java
+class RemoteControl{
+    private final SlotTable buttons = new SlotTable();
+    // bounded, lock-free undo/redo log (see CommandHistory.java), oldest presses are evicted once it is full
+    private final CommandHistory commandHistory;
+
+    public RemoteControl(){
+        this(new RingBufferCommandHistory());
+    }
+
+    public RemoteControl(int historyDepth){
+        this(new RingBufferCommandHistory(historyDepth));
+    }
+
+    public RemoteControl(CommandHistory commandHistory){
+        this.commandHistory = commandHistory;
+    }
+
+    public void setCommand(int slot, Command command){
+        buttons.put(slot, command);
+    }
+
+    public Command removeCommand(int slot){
+        return buttons.remove(slot);
+    }
+
+    Command getCommand(int slot){
+        return buttons.get(slot);
+    }
+
+    CommandHistory getCommandHistory(){
+        return commandHistory;
+    }
+
+    public void pressButton(int slot){
+        Command command = buttons.get(slot);
+        if(command != null){
+            execute(command);
+            commandHistory.push(command);
+        }
+        else{
+            System.out.println("No command assigned to slot " + slot);
+        }
+    }
+
+    public void pressUndo(){
+        Command command = commandHistory.undo();
+        if(command != null){
+            undo(command);
+        }
+        else{
+            System.out.println("No commands to undo");
+        }
+    }
+
+    public void pressRedo(){
+        Command command = commandHistory.redo();
+        if(command != null){
+            execute(command);
+        }
+        else{
+            System.out.println("No commands to redo");
+        }
+    }
+
+    // Every execute/undo of the remote goes through these two, subclasses can hook in (see InstrumentedRemoteControl)
+    protected void execute(Command command){
+        command.execute();
+    }
+
+    protected void undo(Command command){
+        command.undo();
+    }
+}
@@ -0,0 +1,128 @@
+package behaviouralPattterns.command;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class RingBufferCommandHistory implements CommandHistory{
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final class Entry{
+        final Command command;
+
+        Entry(Command command){
+            this.command = command;
+        }
+    }
+
+    private static final class Cursor{
+        final long position;     // next position to push into
+        final int undoDepth;     // entries in [position - undoDepth, position)
+        final int redoDepth;     // entries in [position, position + redoDepth)
+        final Entry pending;     // entry written at (position - 1) that is not in its slot yet
+        final Entry displaced;   // what that slot held before, used as the expected value of the slot CAS
+
+        Cursor(long position, int undoDepth, int redoDepth, Entry pending, Entry displaced){
+            this.position = position;
+            this.undoDepth = undoDepth;
+            this.redoDepth = redoDepth;
+            this.pending = pending;
+            this.displaced = displaced;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicReference<Cursor> cursor = new AtomicReference<>(new Cursor(0, 0, 0, null, null));
+
+    public RingBufferCommandHistory(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RingBufferCommandHistory(int capacity){
+        if(capacity < 1 || capacity > (1 << 30)){
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity){
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity(){
+        return mask + 1;
+    }
+
+    @Override
+    public void push(Command command) {
+        Entry entry = new Entry(command);
+        while(true){
+            Cursor current = settled();
+            int index = (int) (current.position & mask);
+            Cursor next = new Cursor(current.position + 1, Math.min(current.undoDepth + 1, capacity()), 0,
+                    entry, slots.get(index));
+            if(cursor.compareAndSet(current, next)){
+                help(next);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Command undo() {
+        while(true){
+            Cursor current = settled();
+            if(current.undoDepth == 0){
+                return null;
+            }
+            Entry entry = slots.get((int) ((current.position - 1) & mask));
+            Cursor next = new Cursor(current.position - 1, current.undoDepth - 1, current.redoDepth + 1, null, null);
+            if(cursor.compareAndSet(current, next)){
+                return entry.command;
+            }
+        }
+    }
+
+    @Override
+    public Command redo() {
+        while(true){
+            Cursor current = settled();
+            if(current.redoDepth == 0){
+                return null;
+            }
+            Entry entry = slots.get((int) (current.position & mask));
+            Cursor next = new Cursor(current.position + 1, current.undoDepth + 1, current.redoDepth - 1, null, null);
+            if(cursor.compareAndSet(current, next)){
+                return entry.command;
+            }
+        }
+    }
+
+    @Override
+    public int undoDepth() {
+        return cursor.get().undoDepth;
+    }
+
+    public int redoDepth(){
+        return cursor.get().redoDepth;
+    }
+
+    // Returns a cursor with no pending push, finishing someone else's push if needed.
+    private Cursor settled(){
+        Cursor current = cursor.get();
+        while(current.pending != null){
+            help(current);
+            current = cursor.get();
+        }
+        return current;
+    }
+
+    private void help(Cursor withPending){
+        int index = (int) ((withPending.position - 1) & mask);
+        // fails harmlessly if another thread already wrote it, entries are never reused
+        slots.compareAndSet(index, withPending.displaced, withPending.pending);
+        cursor.compareAndSet(withPending, new Cursor(withPending.position, withPending.undoDepth,
+                withPending.redoDepth, null, null));
+    }
+}
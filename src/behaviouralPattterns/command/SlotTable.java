@@ -0,0 +1,165 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Slot table: int slot id -> Command, for remotes with thousands of sparse buttons
+ * =================================================================================================================
+ *
+ * new Command[4] only works while slots are 0..3. Real panels key buttons by device ids (e.g. 7, 90412, 1_000_003),
+ * and a HashMap<Integer, Command> would box every id on every press.
+ *
+ * SlotTable is an open-addressing hash map with primitive int keys:
+ *      keys[]   -> int slot ids, EMPTY marks a free cell
+ *      values[] -> the bound Command, same index as the key
+ * Lookup = hash the id, then walk neighbouring cells (linear probing) until the id or an EMPTY cell is found. Keys sit
+ * next to each other in one int[], so a lookup usually touches one cache line. The table is kept at most half full
+ * so probe runs stay short.
+ *
+ * Hot rebinding: presses (get) never lock. Writers (put/remove) take the table's lock, write the value before the key
+ * with release/acquire ordering, so a reader either sees the old binding or the new one, never a half written cell.
+ * Growing builds a new Table and swaps a volatile reference, presses already running finish on the old one.
+ * remove() only clears the value (the cell keeps its key), the cleared cells are dropped on the next resize.
+ * */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+class SlotTable{
+    // not a valid slot id, used to mark free cells
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Command[].class);
+
+    private static final class Table{
+        final int[] keys;
+        final Command[] values;
+        final int mask;
+
+        Table(int capacity){
+            keys = new int[capacity];
+            values = new Command[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+
+    private volatile Table table;
+    private int usedCells;   // cells with a key, bound or cleared (guarded by this)
+    private int size;        // cells with a bound command (guarded by this)
+
+    public SlotTable(){
+        this(4);
+    }
+
+    public SlotTable(int expectedSlots){
+        table = new Table(capacityFor(expectedSlots));
+    }
+
+    public Command get(int slot){
+        Table current = table;
+        int index = hash(slot) & current.mask;
+        while(true){
+            int key = (int) KEYS.getAcquire(current.keys, index);
+            if(key == slot){
+                return (Command) VALUES.getAcquire(current.values, index);
+            }
+            if(key == EMPTY){
+                return null;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    public synchronized void put(int slot, Command command){
+        if(slot == EMPTY){
+            throw new IllegalArgumentException("slot id " + EMPTY + " is reserved");
+        }
+        if(command == null){
+            remove(slot);
+            return;
+        }
+        if((usedCells + 1) * 2 > table.keys.length){
+            resize();
+        }
+        Table current = table;
+        int index = hash(slot) & current.mask;
+        while(true){
+            int key = current.keys[index];
+            if(key == slot){
+                if(current.values[index] == null){
+                    size++;
+                }
+                VALUES.setRelease(current.values, index, command);
+                return;
+            }
+            if(key == EMPTY){
+                // value first, so a reader that finds the key also finds the command
+                VALUES.setRelease(current.values, index, command);
+                KEYS.setRelease(current.keys, index, slot);
+                usedCells++;
+                size++;
+                return;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    public synchronized Command remove(int slot){
+        Table current = table;
+        int index = hash(slot) & current.mask;
+        while(true){
+            int key = current.keys[index];
+            if(key == slot){
+                Command previous = current.values[index];
+                if(previous != null){
+                    VALUES.setRelease(current.values, index, null);
+                    size--;
+                }
+                return previous;
+            }
+            if(key == EMPTY){
+                return null;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    private void resize(){
+        Table old = table;
+        Table grown = new Table(capacityFor(Math.max(size + 1, old.keys.length / 2)));
+        int used = 0;
+        for(int i = 0; i < old.keys.length; i++){
+            Command value = old.values[i];
+            if(old.keys[i] != EMPTY && value != null){
+                int index = hash(old.keys[i]) & grown.mask;
+                while(grown.keys[index] != EMPTY){
+                    index = (index + 1) & grown.mask;
+                }
+                grown.keys[index] = old.keys[i];
+                grown.values[index] = value;
+                used++;
+            }
+        }
+        usedCells = used;
+        // volatile write publishes the fully built table
+        table = grown;
+    }
+
+    // smallest power of two that keeps expectedSlots at <= 50% load
+    private static int capacityFor(int expectedSlots){
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSlots * 2 - 1)) << 1;
+        return Math.max(capacity, 8);
+    }
+
+    // fibonacci hashing, spreads sequential ids over the whole table with a single multiply
+    private static int hash(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
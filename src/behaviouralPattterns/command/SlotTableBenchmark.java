@@ -0,0 +1,95 @@
+package behaviouralPattterns.command;
+
+/*
+ * =================================================================================================================
+ * Benchmark: slot lookup cost at 4, 1K and 1M slots
+ * =================================================================================================================
+ *
+ * Compares, for the same random sequence of pressed slots:
+ *      array    -> the old Command[] (only possible because the demo ids here are dense)
+ *      slots    -> SlotTable with sparse, device-id like keys
+ *      hashmap  -> HashMap<Integer, Command> with the same sparse keys (boxes the id on every lookup)
+ *
+ * KIM: plain main() harness (no JMH in this project), numbers are ns per lookup after a warm-up round.
+ * */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class SlotTableBenchmark {
+    private static final int LOOKUPS = 20_000_000;
+    private static final int[] SLOT_COUNTS = {4, 1_000, 1_000_000};
+
+    public static void main(String[] args) {
+        Command command = new LightOnCommand(new Light());
+        for(int slots : SLOT_COUNTS){
+            Random random = new Random(42);
+            int[] sparseIds = new int[slots];
+            Command[] array = new Command[slots];
+            SlotTable table = new SlotTable(slots);
+            Map<Integer, Command> hashMap = new HashMap<>();
+            for(int i = 0; i < slots; i++){
+                sparseIds[i] = random.nextInt(Integer.MAX_VALUE);
+                array[i] = command;
+                table.put(sparseIds[i], command);
+                hashMap.put(sparseIds[i], command);
+            }
+            int[] order = new int[1 << 16];
+            for(int i = 0; i < order.length; i++){
+                order[i] = random.nextInt(slots);
+            }
+
+            for(int round = 0; round < 5; round++){
+                long arrayNanos = timeArray(array, order);
+                long tableNanos = timeTable(table, sparseIds, order);
+                long mapNanos = timeMap(hashMap, sparseIds, order);
+                if(round == 4){
+                    System.out.printf("slots=%8d  array=%5.2f ns  slots=%5.2f ns  hashmap=%5.2f ns%n", slots,
+                            (double) arrayNanos / LOOKUPS, (double) tableNanos / LOOKUPS, (double) mapNanos / LOOKUPS);
+                }
+            }
+        }
+    }
+
+    private static long timeArray(Command[] array, int[] order){
+        long begin = System.nanoTime();
+        int found = 0;
+        for(int i = 0; i < LOOKUPS; i++){
+            if(array[order[i & (order.length - 1)]] != null){
+                found++;
+            }
+        }
+        return check(found, begin);
+    }
+
+    private static long timeTable(SlotTable table, int[] ids, int[] order){
+        long begin = System.nanoTime();
+        int found = 0;
+        for(int i = 0; i < LOOKUPS; i++){
+            if(table.get(ids[order[i & (order.length - 1)]]) != null){
+                found++;
+            }
+        }
+        return check(found, begin);
+    }
+
+    private static long timeMap(Map<Integer, Command> map, int[] ids, int[] order){
+        long begin = System.nanoTime();
+        int found = 0;
+        for(int i = 0; i < LOOKUPS; i++){
+            if(map.get(ids[order[i & (order.length - 1)]]) != null){
+                found++;
+            }
+        }
+        return check(found, begin);
+    }
+
+    private static long check(int found, long begin){
+        long nanos = System.nanoTime() - begin;
+        if(found != LOOKUPS){
+            throw new IllegalStateException("lookups missed: " + (LOOKUPS - found));
+        }
+        return nanos;
+    }
+}
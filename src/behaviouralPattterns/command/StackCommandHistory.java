@@ -0,0 +1,40 @@
+package behaviouralPattterns.command;
+
+import java.util.Stack;
+
+// The version 2 behaviour, kept around so that the benchmark can compare against it.
+class StackCommandHistory implements CommandHistory{
+    private final Stack<Command> undoStack = new Stack<>();
+    private final Stack<Command> redoStack = new Stack<>();
+
+    @Override
+    public synchronized void push(Command command) {
+        undoStack.push(command);
+        redoStack.clear();
+    }
+
+    @Override
+    public synchronized Command undo() {
+        if(undoStack.isEmpty()){
+            return null;
+        }
+        Command command = undoStack.pop();
+        redoStack.push(command);
+        return command;
+    }
+
+    @Override
+    public synchronized Command redo() {
+        if(redoStack.isEmpty()){
+            return null;
+        }
+        Command command = redoStack.pop();
+        undoStack.push(command);
+        return command;
+    }
+
+    @Override
+    public synchronized int undoDepth() {
+        return undoStack.size();
+    }
+}
@@ -0,0 +1,7 @@
+package behaviouralPattterns.command;
+
+// A command that switches its receiver to a fixed state, execute() => on/off and undo() => the opposite.
+// Only the last one of a run matters, which is what lets MacroCommand coalesce them.
+interface SwitchCommand extends Command{
+    boolean turnsOn();
+}
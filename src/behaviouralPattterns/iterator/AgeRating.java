@@ -0,0 +1,5 @@
+package behaviouralPattterns.iterator;
+
+enum AgeRating{
+    ALL, TEEN, ADULT
+}
@@ -0,0 +1,46 @@
+package behaviouralPattterns.iterator;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// One BitSet per attribute value, kept up to date by YouTubePlaylist.addVideo.
+class BitSetVideoIndex implements VideoIndex{
+    private static final BitSet NONE = new BitSet();
+
+    private final BitSet copyrighted = new BitSet();
+    private final Map<String, BitSet> regions = new HashMap<>();
+    private final Map<AgeRating, BitSet> ratings = new EnumMap<>(AgeRating.class);
+    private int size;
+
+    public void add(Video video){
+        int position = size++;
+        if(video.isCopyrighted()){
+            copyrighted.set(position);
+        }
+        regions.computeIfAbsent(video.getRegion(), region -> new BitSet()).set(position);
+        ratings.computeIfAbsent(video.getAgeRating(), rating -> new BitSet()).set(position);
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    // the getters copy, so filters can and / or / flip the result in place
+    @Override
+    public BitSet copyrighted(){
+        return (BitSet) copyrighted.clone();
+    }
+
+    @Override
+    public BitSet region(String region){
+        return (BitSet) regions.getOrDefault(region, NONE).clone();
+    }
+
+    @Override
+    public BitSet rated(AgeRating rating){
+        return (BitSet) ratings.getOrDefault(rating, NONE).clone();
+    }
+}
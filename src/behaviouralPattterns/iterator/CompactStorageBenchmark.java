@@ -0,0 +1,108 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: memory and iteration of a 10M video YouTubePlaylist, ArrayList<Video> vs CompactVideoStorage
+ * ===============================================================================================================
+ *
+ * Every video gets its own title ("Video #1234567 - Low Level Design") and random attributes. The three storages are
+ * measured one after the other, the previous playlist is dropped first:
+ *      memory:      heap used after trimToSize() and a full GC, minus the heap before the playlist was built (the
+ *                   VideoIndex bitsets are included, they are the same for all three), + direct memory for the off
+ *                   heap arena
+ *      iteration:   forEachRemaining over all videos, summing the title lengths (so every title is decoded)
+ *      filtered:    createCopyrightIterator().negate() is dense, so createIterator(copyrighted) (0.1%) instead,
+ *                   only the matches are materialised
+ *
+ * KIM: plain main() harness with warm-up rounds, not JMH. The ArrayList playlist needs about 1 GB, run with
+ * -Xmx3g. Memory numbers from MemoryMXBean after System.gc() are approximate, good to a few MB.
+ * */
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class CompactStorageBenchmark {
+    private static final int VIDEOS = 10_000_000;
+    private static final int ROUNDS = 5;
+
+    private static final class LengthSum implements Consumer<Video>{
+        long sum;
+
+        @Override
+        public void accept(Video video) {
+            sum += video.getTitle().length();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        measure("ArrayList<Video>", ArrayList::new);
+        measure("compact, on heap", CompactVideoStorage::onHeap);
+        measure("compact, off heap", CompactVideoStorage::offHeap);
+    }
+
+    private static void measure(String name, Supplier<List<Video>> storage) throws InterruptedException {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        List<Video> videos = storage.get();
+        YouTubePlaylist playlist = new YouTubePlaylist(videos);
+        Random random = new Random(42);
+        String[] regions = {Video.ANY_REGION, "IN", "NZ", "US"};
+        AgeRating[] ratings = AgeRating.values();
+        for(int i = 0; i < VIDEOS; i++){
+            playlist.addVideo(new Video("Video #" + i + " - Low Level Design", random.nextInt(1000) == 0,
+                    regions[random.nextInt(regions.length)], ratings[random.nextInt(ratings.length)]));
+        }
+        // a loaded playlist drops the spare capacity of its arrays
+        if(videos instanceof ArrayList){
+            ((ArrayList<Video>) videos).trimToSize();
+        } else {
+            ((CompactVideoStorage) videos).trimToSize();
+        }
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+
+        double iterationNanos = 0;
+        double filteredNanos = 0;
+        long checksum = 0;
+        for(int round = 0; round < ROUNDS; round++){
+            long begin = System.nanoTime();
+            LengthSum lengths = new LengthSum();
+            playlist.createIterator().forEachRemaining(lengths);
+            iterationNanos = (double) (System.nanoTime() - begin) / VIDEOS;
+
+            begin = System.nanoTime();
+            PlaylistIterator copyrighted = playlist.createIterator(VideoFilter.copyrighted());
+            while(copyrighted.hasNext()){
+                lengths.accept(copyrighted.next());
+            }
+            filteredNanos = (System.nanoTime() - begin) / 1e6;
+            checksum = lengths.sum;
+        }
+        System.out.printf("%-18s heap %7.1f MB  direct %6.1f MB  = %5.1f B/video | iterate %5.2f ns/video | "
+                        + "copyrighted only %6.2f ms (checksum %d)%n", name, heap / 1e6, direct / 1e6,
+                (double) (heap + direct) / VIDEOS, iterationNanos, filteredNanos, checksum);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        // direct buffers dropped while the arena grew are freed by their cleaner, after the GC
+        Thread.sleep(200);
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect(){
+        for(BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)){
+            if(pool.getName().equals("direct")){
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
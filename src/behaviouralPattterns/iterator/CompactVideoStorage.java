@@ -0,0 +1,197 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Compact video storage: the videos of a big YouTubePlaylist as columns instead of one object per video
+ * ===============================================================================================================
+ *
+ * An ArrayList<Video> costs per video: the reference in the list, the Video object, its title String and the
+ * String's byte[], so about 100 bytes for a 30 character title, most of it object headers and pointers.
+ * CompactVideoStorage keeps the same videos in three columns:
+ *      title arena:  every title as UTF-8, back to back, in one byte[] (or one direct ByteBuffer, off heap)
+ *      starts:       int per video, where its title starts in the arena (+ one more int = end of the last title)
+ *      attributes:   int per video, copyright flag, age rating and region (as a code into a small dictionary)
+ * So a video costs its title bytes + 8 bytes, and the GC sees a handful of arrays instead of 4 objects per video.
+ *
+ * It is a List<Video>, so YouTubePlaylist and all its iterators work on it unchanged. A Video is only materialised
+ * by get(), i.e. when an iterator hands it out, and it is a new object every time: a copy, changing it does not
+ * change the playlist. Skipped videos (filtered iterators) are never materialised.
+ *
+ * KIM: off heap keeps the titles out of the GC heap entirely (bounded by -XX:MaxDirectMemorySize), reading a title
+ * from there costs one extra copy into a (per thread) byte[]. The arena is int addressed, so at most 2 GB of titles
+ * per playlist. Like ArrayList, adding videos while other threads read is not safe, call trimToSize() once a big
+ * playlist is loaded.
+ * */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+class CompactVideoStorage extends AbstractList<Video> implements RandomAccess{
+    private static final int INITIAL_CAPACITY = 16;
+
+    // attributes of a video in one int: region code << 3 | rating ordinal << 1 | copyrighted
+    private static final int COPYRIGHTED = 1;
+    private static final int RATING_SHIFT = 1;
+    private static final int RATING_MASK = 0b11;
+    private static final int REGION_SHIFT = 3;
+    private static final AgeRating[] RATINGS = AgeRating.values();
+
+    private final TitleArena titles;
+    private int[] starts = new int[INITIAL_CAPACITY + 1];
+    private int[] attributes = new int[INITIAL_CAPACITY];
+    // regions repeat a lot (a handful of country codes), so they are stored once and referenced by code
+    private final List<String> regionNames = new ArrayList<>();
+    private final Map<String, Integer> regionCodes = new HashMap<>();
+    private int size;
+
+    private CompactVideoStorage(TitleArena titles){
+        this.titles = titles;
+    }
+
+    public static CompactVideoStorage onHeap(){
+        return new CompactVideoStorage(new HeapTitleArena());
+    }
+
+    public static CompactVideoStorage offHeap(){
+        return new CompactVideoStorage(new DirectTitleArena());
+    }
+
+    @Override
+    public boolean add(Video video) {
+        if(size == attributes.length){
+            // trimToSize() may have left length 0
+            int capacity = Math.max(INITIAL_CAPACITY, attributes.length * 2);
+            attributes = Arrays.copyOf(attributes, capacity);
+            starts = Arrays.copyOf(starts, capacity + 1);
+        }
+        byte[] utf8 = video.getTitle().getBytes(StandardCharsets.UTF_8);
+        starts[size + 1] = titles.append(starts[size], utf8);
+        attributes[size] = regionCode(video.getRegion()) << REGION_SHIFT
+                | video.getAgeRating().ordinal() << RATING_SHIFT
+                | (video.isCopyrighted() ? COPYRIGHTED : 0);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    // materialises the video at position, a new Video on every call
+    @Override
+    public Video get(int position) {
+        Objects.checkIndex(position, size);
+        int start = starts[position];
+        int packed = attributes[position];
+        return new Video(titles.read(start, starts[position + 1] - start), (packed & COPYRIGHTED) != 0,
+                regionNames.get(packed >>> REGION_SHIFT), RATINGS[(packed >>> RATING_SHIFT) & RATING_MASK]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // like ArrayList.trimToSize: drops the spare capacity left by doubling, e.g. once a playlist is loaded
+    public void trimToSize(){
+        attributes = Arrays.copyOf(attributes, size);
+        starts = Arrays.copyOf(starts, size + 1);
+        titles.trimTo(starts[size]);
+    }
+
+    private int regionCode(String region){
+        Integer code = regionCodes.get(region);
+        if(code == null){
+            code = regionNames.size();
+            regionNames.add(region);
+            regionCodes.put(region, code);
+        }
+        return code;
+    }
+
+    // Where the UTF-8 titles are kept, grows by doubling.
+    private interface TitleArena{
+        // writes utf8 at position, returns the position right after it
+        int append(int position, byte[] utf8);
+
+        String read(int position, int length);
+
+        void trimTo(int length);
+    }
+
+    private static int grownCapacity(int capacity, int needed){
+        if(needed < 0){
+            throw new IllegalStateException("title arena is full (2 GB of titles)");
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, (long) capacity * 2));
+    }
+
+    private static final class HeapTitleArena implements TitleArena{
+        private byte[] bytes = new byte[1024];
+
+        @Override
+        public int append(int position, byte[] utf8) {
+            int end = position + utf8.length;
+            if(end < 0 || end > bytes.length){
+                bytes = Arrays.copyOf(bytes, grownCapacity(bytes.length, end));
+            }
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            return end;
+        }
+
+        @Override
+        public String read(int position, int length) {
+            return new String(bytes, position, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void trimTo(int length) {
+            bytes = Arrays.copyOf(bytes, length);
+        }
+    }
+
+    private static final class DirectTitleArena implements TitleArena{
+        // titles are copied out of the buffer into this before decoding, one per reading thread
+        private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+        private ByteBuffer bytes = ByteBuffer.allocateDirect(1024);
+
+        @Override
+        public int append(int position, byte[] utf8) {
+            int end = position + utf8.length;
+            if(end < 0 || end > bytes.capacity()){
+                resize(position, grownCapacity(bytes.capacity(), end));
+            }
+            bytes.put(position, utf8);
+            return end;
+        }
+
+        @Override
+        public String read(int position, int length) {
+            byte[] utf8 = SCRATCH.get();
+            if(utf8.length < length){
+                utf8 = new byte[Math.max(length, utf8.length * 2)];
+                SCRATCH.set(utf8);
+            }
+            bytes.get(position, utf8, 0, length);
+            return new String(utf8, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void trimTo(int length) {
+            resize(length, length);
+        }
+
+        private void resize(int used, int capacity){
+            ByteBuffer resized = ByteBuffer.allocateDirect(capacity);
+            resized.put(0, bytes, 0, used);
+            // the old buffer is freed once the GC collects it
+            bytes = resized;
+        }
+    }
+}
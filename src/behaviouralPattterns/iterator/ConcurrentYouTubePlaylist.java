@@ -0,0 +1,70 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Concurrent playlist: lock-free appends, every iterator on its own immutable snapshot
+ * ===============================================================================================================
+ *
+ * YouTubePlaylistIterator reads the live list by position: a video added while iterating may or may not be seen,
+ * and ArrayList itself is not safe to grow while other threads read it. ConcurrentYouTubePlaylist keeps its videos
+ * in a persistent (never changed, structurally shared) vector instead:
+ *
+ *      - PlaylistSnapshot is one version of the playlist: a 32-way trie of leaves of 32 videos + a tail leaf
+ *      - addVideo() builds the next version from the current one and installs it with one compareAndSet on the head,
+ *        retrying if another writer got in first. No locks. Usually the next version only writes the next free slot
+ *        of the tail leaf it shares with the current one (older versions never read past their own size); when the
+ *        tail is full it goes into the trie, copying the log32(n) small arrays on the path from the root.
+ *      - createIterator() takes the current version, O(1), and iterates it. Writers never change what that version
+ *        can see, so the iterator sees exactly the videos that were added before it was created, no skips, no
+ *        duplicates, however many writers keep appending.
+ *
+ * The filter bitsets come from the version too: every leaf keeps the packed attributes of its videos (copyright,
+ * rating, region code) as an int column, so a snapshot builds the BitSet of a VideoFilter from its own leaves,
+ * consistent with its videos, reading 4 bytes per video and no Video objects.
+ *
+ * KIM: an append allocates one small version object (+ a leaf and the copied path every 32 appends), a writer that
+ * loses a race redoes its append. Walking the trie leaf by leaf is a bit slower than an ArrayList, and a snapshot
+ * keeps every video it can see alive as long as it is referenced.
+ * */
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+class ConcurrentYouTubePlaylist implements Playlist{
+    private final AtomicReference<PlaylistSnapshot> head = new AtomicReference<>(PlaylistSnapshot.EMPTY);
+
+    // safe from any number of threads, lock-free
+    public void addVideo(Video video){
+        int attributes = PlaylistSnapshot.attributes(video);
+        PlaylistSnapshot current;
+        PlaylistSnapshot next;
+        do {
+            current = head.get();
+            next = current.append(video, attributes);
+        } while(!head.compareAndSet(current, next));
+    }
+
+    // the playlist as it is right now, never changes afterwards
+    public PlaylistSnapshot snapshot(){
+        return head.get();
+    }
+
+    @Override
+    public PlaylistIterator createIterator() {
+        return snapshot().createIterator();
+    }
+
+    @Override
+    public PlaylistIterator createIterator(VideoFilter filter) {
+        return snapshot().createIterator(filter);
+    }
+
+    public Stream<Video> stream(){
+        return snapshot().stream();
+    }
+
+    public Stream<Video> parallelStream(){
+        return snapshot().parallelStream();
+    }
+}
+
@@ -0,0 +1,109 @@
+package behaviouralPattterns.iterator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class FilePlaylistStore implements PlaylistStore, AutoCloseable{
+    public static final String DATA_FILE = "videos.dat";
+    public static final String INDEX_FILE = "videos.idx";
+
+    // first byte of a record: copyrighted flag | age rating ordinal << 1
+    private static final int COPYRIGHTED = 1;
+    private static final int RATING_SHIFT = 1;
+    private static final int RATING_MASK = 0b11;
+    private static final AgeRating[] RATINGS = AgeRating.values();
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final long size;
+
+    public FilePlaylistStore(Path directory) throws IOException {
+        this.data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.READ);
+        this.index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.READ);
+        this.size = Math.max(0, index.size() / Long.BYTES - 1);
+    }
+
+    // Writes a new store with these videos into directory (replacing an old one).
+    public static void write(Path directory, Iterable<Video> videos) throws IOException {
+        Files.createDirectories(directory);
+        try(DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(directory.resolve(DATA_FILE)), 1 << 16));
+            DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(directory.resolve(INDEX_FILE)), 1 << 16))){
+            long offset = 0;
+            for(Video video : videos){
+                byte[] region = video.getRegion().getBytes(StandardCharsets.UTF_8);
+                byte[] title = video.getTitle().getBytes(StandardCharsets.UTF_8);
+                if(region.length > 0xFFFF){
+                    throw new IllegalArgumentException("region is longer than 65535 bytes: " + video.getRegion());
+                }
+                indexOut.writeLong(offset);
+                dataOut.writeByte(video.getAgeRating().ordinal() << RATING_SHIFT
+                        | (video.isCopyrighted() ? COPYRIGHTED : 0));
+                dataOut.writeShort(region.length);
+                dataOut.write(region);
+                dataOut.write(title);
+                offset += 3 + region.length + title.length;
+            }
+            indexOut.writeLong(offset);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int readPage(long first, Video[] page) throws IOException {
+        if(first < 0 || first >= size){
+            return 0;
+        }
+        int count = (int) Math.min(page.length, size - first);
+        ByteBuffer offsets = ByteBuffer.allocate((count + 1) * Long.BYTES);
+        readFully(index, offsets, first * Long.BYTES);
+        offsets.flip();
+        long start = offsets.getLong(0);
+        long end = offsets.getLong(count * Long.BYTES);
+        byte[] records = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        readFully(data, buffer, start);
+        for(int i = 0; i < count; i++){
+            int from = (int) (offsets.getLong(i * Long.BYTES) - start);
+            int to = (int) (offsets.getLong((i + 1) * Long.BYTES) - start);
+            int flags = records[from];
+            int regionLength = buffer.getShort(from + 1) & 0xFFFF;
+            int titleFrom = from + 3 + regionLength;
+            page[i] = new Video(new String(records, titleFrom, to - titleFrom, StandardCharsets.UTF_8),
+                    (flags & COPYRIGHTED) != 0, new String(records, from + 3, regionLength, StandardCharsets.UTF_8),
+                    RATINGS[(flags >>> RATING_SHIFT) & RATING_MASK]);
+        }
+        return count;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()){
+            int read = channel.read(buffer, position);
+            if(read < 0){
+                throw new IOException("playlist store is truncated");
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
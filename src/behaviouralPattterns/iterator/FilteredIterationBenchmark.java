@@ -0,0 +1,80 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: scanning filter vs bitset filter over a 10M video YouTubePlaylist
+ * ===============================================================================================================
+ *
+ * Attributes: 0.1% of the videos are copyrighted, regions are 80% ANY / 19% IN / 1% NZ, ratings 85% ALL / 10% TEEN /
+ * 5% ADULT, spread at random. For every filter both ways walk all matches:
+ *      scan:   ScanningPlaylistIterator over the plain iterator, test(Video) on every video
+ *      bitset: createIterator(filter), select() builds the BitSet, then nextSetBit from match to match
+ * The bitset time includes building the BitSet, that is paid on every createIterator(filter).
+ *
+ * KIM: plain main() harness with warm-up rounds, not JMH. Videos share their titles so 10M fit a default heap.
+ * */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class FilteredIterationBenchmark {
+    private static final int VIDEOS = 10_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        String[] titles = new String[1000];
+        for(int i = 0; i < titles.length; i++){
+            titles[i] = "Video " + i;
+        }
+        YouTubePlaylist playlist = new YouTubePlaylist();
+        for(int i = 0; i < VIDEOS; i++){
+            int regionDraw = random.nextInt(100);
+            String region = regionDraw < 80 ? Video.ANY_REGION : regionDraw < 99 ? "IN" : "NZ";
+            int ratingDraw = random.nextInt(100);
+            AgeRating rating = ratingDraw < 85 ? AgeRating.ALL : ratingDraw < 95 ? AgeRating.TEEN : AgeRating.ADULT;
+            playlist.addVideo(new Video(titles[i % titles.length], random.nextInt(1000) == 0, region, rating));
+        }
+
+        Map<String, VideoFilter> filters = new LinkedHashMap<>();
+        filters.put("copyrighted", VideoFilter.copyrighted());
+        filters.put("NZ and ADULT", VideoFilter.region("NZ").and(VideoFilter.rated(AgeRating.ADULT)));
+        filters.put("NZ or copyrighted", VideoFilter.region("NZ").or(VideoFilter.copyrighted()));
+        filters.put("teen in IN", VideoFilter.region("IN").or(VideoFilter.region(Video.ANY_REGION))
+                .and(VideoFilter.suitableFor(AgeRating.TEEN)));
+        filters.put("not copyrighted", VideoFilter.copyrighted().negate());
+
+        for(int round = 0; round < ROUNDS; round++){
+            boolean report = round == ROUNDS - 1;
+            for(Map.Entry<String, VideoFilter> filter : filters.entrySet()){
+                long begin = System.nanoTime();
+                long scanned = walk(new ScanningPlaylistIterator(playlist.createIterator(), filter.getValue()));
+                long scanNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                long indexed = walk(playlist.createIterator(filter.getValue()));
+                long bitsetNanos = System.nanoTime() - begin;
+
+                if(report){
+                    System.out.printf("%-18s %8d matches  scan %7.2f ms  bitset %7.2f ms  %6.1fx%n", filter.getKey(),
+                            indexed, scanNanos / 1e6, bitsetNanos / 1e6, (double) scanNanos / bitsetNanos);
+                    if(scanned != indexed){
+                        throw new IllegalStateException("scan and bitset disagree: " + scanned + " vs " + indexed);
+                    }
+                }
+            }
+        }
+    }
+
+    // counts the matches, and touches every title so the walk can not be dropped
+    private static long walk(PlaylistIterator iterator){
+        long count = 0;
+        int length = 0;
+        while(iterator.hasNext()){
+            length += iterator.next().getTitle().length();
+            count++;
+        }
+        return length < 0 ? -1 : count;
+    }
+}
@@ -0,0 +1,42 @@
+package behaviouralPattterns.iterator;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// concrete iterator - traversal algo 2: only the positions set in matches
+class FilteredPlaylistIterator implements PlaylistIterator{
+    private final List<Video> videos;
+    private final BitSet matches;
+    private int position;
+
+    public FilteredPlaylistIterator(List<Video> videos, BitSet matches){
+        this.videos = videos;
+        this.matches = matches;
+        this.position = matches.nextSetBit(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position >= 0;
+    }
+
+    @Override
+    public Video next() {
+        if(position < 0){
+            throw new NoSuchElementException();
+        }
+        Video video = videos.get(position);
+        position = matches.nextSetBit(position + 1);
+        return video;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Video> action) {
+        for(int i = position; i >= 0; i = matches.nextSetBit(i + 1)){
+            action.accept(videos.get(i));
+        }
+        position = -1;
+    }
+}
@@ -37,70 +37,13 @@ Cons: 1) Adds extra classes / interfaces
 
 */
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
-interface PlaylistIterator{
-    Boolean hasNext();
-    Video next();
-}
-
-// iterable interface
-interface Playlist{
-    // iterator 1
-    PlaylistIterator createIterator();
-    // // iterator 2
-    //PlaylistIterator createCopyrightIterator();
-}
-
-class Video{
-    String title;
-
-    public Video(String title){
-        this.title=title;
-    }
-
-    public String getTitle(){
-        return title;
-    }
-}
-
-class YouTubePlaylist implements Playlist{
-    private List<Video> videos = new ArrayList<>();
-
-    public void addVideo(Video video){
-        videos.add(video);
-    }
-
-    @Override
-    public PlaylistIterator createIterator() {
-        return new YouTubePlaylistIterator(videos);
-    }
-}
-
-// concrete iterator - traversal algo 1
-class YouTubePlaylistIterator implements PlaylistIterator{
-    private List<Video> videos;
-    private int position;
-
-    public YouTubePlaylistIterator(List<Video> videos){
-        this.videos=videos;
-        this.position=0;
-    }
-
-    @Override
-    public Boolean hasNext(){
-        return position < videos.size();
-    }
-
-    @Override
-    public Video next(){
-        return hasNext() ? videos.get(position++) : null;
-    }
-}
-
 public class Iterator {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         YouTubePlaylist playlist = new YouTubePlaylist();
         playlist.addVideo(new Video("LLD Tutorial"));
         playlist.addVideo(new Video("System Designs Basics"));
@@ -110,10 +53,63 @@ public class Iterator {
         while(iterator.hasNext()){
             System.out.println(iterator.next().getTitle());
         }
-    }
-}
 
+        playlist.addVideo(new Video("Licensed Music Mix", true, Video.ANY_REGION, AgeRating.ALL));
+        playlist.addVideo(new Video("Cricket Highlights", false, "IN", AgeRating.ALL));
+        playlist.addVideo(new Video("Late Night Comedy", false, "IN", AgeRating.ADULT));
+
+        // skip copyright videos
+        PlaylistIterator copyrightFree = playlist.createCopyrightIterator();
+        while(copyrightFree.hasNext()){
+            System.out.println("copyright free: " + copyrightFree.next().getTitle());
+        }
+
+        // what a teen viewer in India can watch: (IN or ANY region) and (ALL or TEEN rating)
+        VideoFilter teenInIndia = VideoFilter.region("IN").or(VideoFilter.region(Video.ANY_REGION))
+                .and(VideoFilter.suitableFor(AgeRating.TEEN));
+        PlaylistIterator forTeen = playlist.createIterator(teenInIndia);
+        while(forTeen.hasNext()){
+            System.out.println("teen in IN: " + forTeen.next().getTitle());
+        }
+
+        // the same iterators over compact storage: titles in one UTF-8 arena, a Video is only created by next()
+        YouTubePlaylist compact = new YouTubePlaylist(CompactVideoStorage.offHeap());
+        compact.addVideo(new Video("Builder Pattern"));
+        compact.addVideo(new Video("Decorator Pattern", true, Video.ANY_REGION, AgeRating.ALL));
+        PlaylistIterator compactFree = compact.createCopyrightIterator();
+        while(compactFree.hasNext()){
+            System.out.println("compact, copyright free: " + compactFree.next().getTitle());
+        }
+
+        // many threads can add to a ConcurrentYouTubePlaylist, an iterator only sees its snapshot
+        ConcurrentYouTubePlaylist shared = new ConcurrentYouTubePlaylist();
+        shared.addVideo(new Video("Singleton Pattern"));
+        PlaylistIterator before = shared.createIterator();
+        shared.addVideo(new Video("Factory Pattern"));
+        while(before.hasNext()){
+            System.out.println("snapshot: " + before.next().getTitle());
+        }
 
+        // bulk job over the whole playlist, split across the fork-join pool
+        int titleLength = playlist.parallelStream().mapToInt(video -> video.getTitle().length()).sum();
+        System.out.println("total title length: " + titleLength);
+
+        // a playlist that is not in memory, read page by page from files, see PagedPlaylistIterator.java
+        Path directory = Files.createTempDirectory("playlist");
+        FilePlaylistStore.write(directory, List.of(new Video("Iterator Pattern"), new Video("Observer Pattern"),
+                new Video("Licensed Pattern Mix", true, Video.ANY_REGION, AgeRating.ALL)));
+        try(FilePlaylistStore store = new FilePlaylistStore(directory)){
+            PlaylistIterator stored = new StoredPlaylist(store).createCopyrightIterator();
+            while(stored.hasNext()){
+                System.out.println("stored, copyright free: " + stored.next().getTitle());
+            }
+        } finally {
+            Files.delete(directory.resolve(FilePlaylistStore.DATA_FILE));
+            Files.delete(directory.resolve(FilePlaylistStore.INDEX_FILE));
+            Files.delete(directory);
+        }
+    }
+}
 
 /*
  * ===============================================================================================================\
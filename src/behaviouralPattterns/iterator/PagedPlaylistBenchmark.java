@@ -0,0 +1,99 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: in-memory YouTubePlaylist vs PagedPlaylistIterator over a 2M video FilePlaylistStore
+ * ===============================================================================================================
+ *
+ * The store is written once to a temp directory. Every video gets a little bit of client work (hashing its title),
+ * like a real consumer would do something with it.
+ *      1) load all:          read the whole store into a YouTubePlaylist (ArrayList), then iterate it
+ *      2) paged, no prefetch: PagedPlaylistIterator with a direct executor (the next page is read when it is needed)
+ *      3) paged, prefetch:   PagedPlaylistIterator with the background prefetch
+ * Reported: time to the first video and the full iteration rate (videos/s, including the time to first video).
+ *
+ * KIM: plain main() harness with a warm-up round (no JMH in this project). The files are in the OS page cache after
+ * the first round, so this measures decoding and the prefetch overlap, not the disk.
+ * */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+public class PagedPlaylistBenchmark {
+    private static final int VIDEOS = 2_000_000;
+    private static final int PAGE_SIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("playlist-benchmark");
+        ExecutorService prefetcher = Executors.newSingleThreadExecutor();
+        try {
+            FilePlaylistStore.write(directory, new AbstractList<Video>() {
+                @Override
+                public Video get(int index) {
+                    return new Video("Video #" + index + " - Low Level Design, behavioural patterns");
+                }
+
+                @Override
+                public int size() {
+                    return VIDEOS;
+                }
+            });
+            try(FilePlaylistStore store = new FilePlaylistStore(directory)){
+                for(int round = 0; round < 2; round++){
+                    boolean report = round == 1;
+                    loadAll(store, report);
+                    paged("paged, no prefetch", new StoredPlaylist(store, PAGE_SIZE, Runnable::run), report);
+                    paged("paged, prefetch", new StoredPlaylist(store, PAGE_SIZE, prefetcher), report);
+                }
+            }
+        } finally {
+            prefetcher.shutdownNow();
+            try(Stream<Path> files = Files.walk(directory)){
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void loadAll(PlaylistStore store, boolean report) throws IOException {
+        long begin = System.nanoTime();
+        YouTubePlaylist playlist = new YouTubePlaylist();
+        Video[] page = new Video[PAGE_SIZE];
+        for(long first = 0; first < store.size(); first += PAGE_SIZE){
+            int count = store.readPage(first, page);
+            for(int i = 0; i < count; i++){
+                playlist.addVideo(page[i]);
+            }
+        }
+        consume("load all", playlist.createIterator(), begin, report);
+    }
+
+    private static void paged(String name, Playlist playlist, boolean report){
+        long begin = System.nanoTime();
+        consume(name, playlist.createIterator(), begin, report);
+    }
+
+    private static void consume(String name, PlaylistIterator iterator, long begin, boolean report){
+        long firstVideoNanos = -1;
+        long count = 0;
+        int checksum = 0;
+        while(iterator.hasNext()){
+            Video video = iterator.next();
+            if(firstVideoNanos < 0){
+                firstVideoNanos = System.nanoTime() - begin;
+            }
+            checksum += video.getTitle().hashCode();
+            count++;
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        if(report){
+            System.out.printf("%-20s first video after %8.3f ms, %6.2f M videos/s (%d videos, checksum %d)%n", name,
+                    firstVideoNanos / 1e6, count / seconds / 1e6, count, checksum);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Paged playlist iterator: lazy iteration over a PlaylistStore with the next page prefetched
+ * ===============================================================================================================
+ *
+ * The client still only sees PlaylistIterator, it does not know that the playlist is not in memory.
+ *
+ *      - lazy: nothing is read before createIterator(), then one page at a time
+ *      - fast first video: the first page is small (FIRST_PAGE_SIZE) and read right away, pages then double up to
+ *        pageSize, so playback starts without waiting for a big page
+ *      - prefetch: as soon as a page is handed over, the next page is requested on the prefetch executor, so while
+ *        the client consumes page n, page n + 1 is being read
+ *      - bounded memory: at most two pages are held (the current one + the one being prefetched), no matter how long
+ *        the playlist is
+ *
+ * KIM: a failed read surfaces as UncheckedIOException from next(), PlaylistIterator can not throw IOException.
+ * */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+class PagedPlaylistIterator implements PlaylistIterator{
+    public static final int FIRST_PAGE_SIZE = 16;
+
+    // One page that was read from the store.
+    private static final class Page{
+        final long first;
+        final Video[] videos;
+        final int count;
+
+        Page(long first, Video[] videos, int count){
+            this.first = first;
+            this.videos = videos;
+            this.count = count;
+        }
+    }
+
+    private final PlaylistStore store;
+    private final long size;
+    private final int pageSize;
+    private final Executor prefetcher;
+    private Page current;
+    private int position;
+    private CompletableFuture<Page> next;
+
+    public PagedPlaylistIterator(PlaylistStore store, int pageSize, Executor prefetcher){
+        if(pageSize < 1){
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.store = store;
+        this.pageSize = pageSize;
+        this.prefetcher = prefetcher;
+        try {
+            this.size = store.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Page first = read(0, Math.min(FIRST_PAGE_SIZE, pageSize));
+        this.current = first;
+        prefetchAfter(first);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return current.first + position < size;
+    }
+
+    @Override
+    public Video next() {
+        if(position == current.count && !nextPage()){
+            throw new NoSuchElementException();
+        }
+        return current.videos[position++];
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Video> action) {
+        do {
+            Video[] videos = current.videos;
+            int count = current.count;
+            for(int i = position; i < count; i++){
+                action.accept(videos[i]);
+            }
+            position = count;
+        } while(nextPage());
+    }
+
+    // A batch never crosses a page, so it is a view of the page array (fewer than max at the end of a page).
+    @Override
+    public List<Video> nextBatch(int max) {
+        if(max < 0){
+            throw new IllegalArgumentException("max must not be negative");
+        }
+        if(position == current.count && !nextPage()){
+            return Collections.emptyList();
+        }
+        int end = (int) Math.min(current.count, (long) position + max);
+        List<Video> batch = Collections.unmodifiableList(Arrays.asList(current.videos).subList(position, end));
+        position = end;
+        return batch;
+    }
+
+    // Moves to the prefetched page and starts prefetching the one after it, false at the end of the playlist.
+    private boolean nextPage(){
+        if(next == null){
+            return false;
+        }
+        current = await(next);
+        position = 0;
+        prefetchAfter(current);
+        return current.count > 0;
+    }
+
+    private void prefetchAfter(Page page){
+        long following = page.first + page.count;
+        if(page.count == 0 || following >= size){
+            next = null;
+            return;
+        }
+        // pages grow: 16, 32, 64, ... up to pageSize
+        int length = Math.min(pageSize, page.count * 2);
+        next = CompletableFuture.supplyAsync(() -> read(following, length), prefetcher);
+    }
+
+    private Page read(long first, int length){
+        Video[] videos = new Video[length];
+        try {
+            return new Page(first, videos, store.readPage(first, videos));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Page await(CompletableFuture<Page> page){
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
+
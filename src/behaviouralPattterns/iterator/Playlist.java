@@ -0,0 +1,18 @@
+package behaviouralPattterns.iterator;
+
+// iterable interface
+interface Playlist{
+    // iterator 1
+    PlaylistIterator createIterator();
+
+    // iterator 2: only the videos that match filter, see VideoFilter.java. This default reads and tests every video,
+    // playlists with an index override it.
+    default PlaylistIterator createIterator(VideoFilter filter){
+        return new ScanningPlaylistIterator(createIterator(), filter);
+    }
+
+    // iterator 3: skips copyright videos
+    default PlaylistIterator createCopyrightIterator(){
+        return createIterator(VideoFilter.copyrighted().negate());
+    }
+}
@@ -0,0 +1,115 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: ways to walk a 10M video YouTubePlaylist
+ * ===============================================================================================================
+ *
+ *      old contract:       Boolean hasNext() + next() returning null at the end, what PlaylistIterator used to be
+ *                          (kept below as LegacyPlaylistIterator so the difference can still be measured)
+ *      hasNext/next:       the primitive contract, one element at a time
+ *      forEachRemaining:   the iterator walks its list itself
+ *      nextBatch(1024):    runs of 1024 videos, one array copy per batch
+ * Every loop adds up the title lengths so the JIT can not drop the loop. Videos share 1000 title Strings so the
+ * playlist fits a default heap.
+ *
+ * KIM: plain main() harness with warm-up rounds, not JMH. For JMH numbers these four loops become four @Benchmark
+ * methods over a @State playlist.
+ * */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class PlaylistIterationBenchmark {
+    private static final int VIDEOS = 10_000_000;
+    private static final int BATCH = 1024;
+    private static final int ROUNDS = 5;
+
+    // PlaylistIterator before the primitive contract
+    private static final class LegacyPlaylistIterator{
+        private final List<Video> videos;
+        private int position;
+
+        LegacyPlaylistIterator(List<Video> videos){
+            this.videos = videos;
+        }
+
+        Boolean hasNext(){
+            return position < videos.size();
+        }
+
+        Video next(){
+            return hasNext() ? videos.get(position++) : null;
+        }
+    }
+
+    // not a lambda capturing a local, so forEachRemaining's action is one shared instance like in real code
+    private static final class LengthSum implements Consumer<Video>{
+        long sum;
+
+        @Override
+        public void accept(Video video) {
+            sum += video.getTitle().length();
+        }
+    }
+
+    public static void main(String[] args) {
+        String[] titles = new String[1000];
+        for(int i = 0; i < titles.length; i++){
+            titles[i] = "Video " + i;
+        }
+        YouTubePlaylist playlist = new YouTubePlaylist();
+        List<Video> videos = new ArrayList<>(VIDEOS);
+        for(int i = 0; i < VIDEOS; i++){
+            Video video = new Video(titles[i % titles.length]);
+            playlist.addVideo(video);
+            videos.add(video);
+        }
+
+        for(int round = 0; round < ROUNDS; round++){
+            boolean report = round == ROUNDS - 1;
+
+            long begin = System.nanoTime();
+            LegacyPlaylistIterator legacy = new LegacyPlaylistIterator(videos);
+            long sum = 0;
+            while(legacy.hasNext()){
+                Video video = legacy.next();
+                if(video != null){
+                    sum += video.getTitle().length();
+                }
+            }
+            print("old contract", begin, sum, report);
+
+            begin = System.nanoTime();
+            PlaylistIterator iterator = playlist.createIterator();
+            sum = 0;
+            while(iterator.hasNext()){
+                sum += iterator.next().getTitle().length();
+            }
+            print("hasNext/next", begin, sum, report);
+
+            begin = System.nanoTime();
+            LengthSum lengths = new LengthSum();
+            playlist.createIterator().forEachRemaining(lengths);
+            print("forEachRemaining", begin, lengths.sum, report);
+
+            begin = System.nanoTime();
+            iterator = playlist.createIterator();
+            sum = 0;
+            for(List<Video> batch = iterator.nextBatch(BATCH); !batch.isEmpty(); batch = iterator.nextBatch(BATCH)){
+                for(int i = 0, size = batch.size(); i < size; i++){
+                    sum += batch.get(i).getTitle().length();
+                }
+            }
+            print("nextBatch(" + BATCH + ")", begin, sum, report);
+        }
+    }
+
+    private static void print(String name, long begin, long checksum, boolean report){
+        if(report){
+            System.out.printf("%-18s %6.2f ns/video (checksum %d)%n", name,
+                    (double) (System.nanoTime() - begin) / VIDEOS, checksum);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package behaviouralPattterns.iterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+interface PlaylistIterator{
+    // primitive boolean, the old Boolean was boxed on every step
+    boolean hasNext();
+    // throws NoSuchElementException past the end (instead of returning null)
+    Video next();
+
+    // Hands every remaining video to action. Iterators override it to walk their storage directly, without a
+    // hasNext()/next() pair of interface calls per video.
+    default void forEachRemaining(Consumer<? super Video> action){
+        while(hasNext()){
+            action.accept(next());
+        }
+    }
+
+    /*
+     * The next max videos (fewer at the end, empty when done) as a read-only list, and moves past them. A batch stays
+     * valid when the playlist changes later: iterators over storage that never changes (pages, snapshot leaves)
+     * return a view of it, the others copy.
+     */
+    default List<Video> nextBatch(int max){
+        List<Video> batch = new ArrayList<>();
+        while(batch.size() < max && hasNext()){
+            batch.add(next());
+        }
+        return batch;
+    }
+}
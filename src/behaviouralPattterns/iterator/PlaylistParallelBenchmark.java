@@ -0,0 +1,97 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: bulk job over a 5M video YouTubePlaylist, sequential vs parallel on 1..N cores
+ * ===============================================================================================================
+ *
+ * The job is a stand-in for a transcoding check: a few rounds of FNV-1a over every title, summed up.
+ *      1) iterator:            PlaylistIterator.forEachRemaining on one thread (the baseline)
+ *      2) stream:              playlist.stream(), sequential over PlaylistSpliterator
+ *      3) parallel, p threads: playlist.parallelStream() run inside a ForkJoinPool of parallelism p, for
+ *                              p = 1, 2, 4, ... up to the number of cores (and the number of cores itself)
+ * Reported: ms per pass and the speed-up against the iterator. The checksum must be the same everywhere.
+ *
+ * KIM: plain main() harness with warm-up rounds, not JMH. Scaling is capped by the cores of the machine, on a single
+ * core box every p > 1 only shows the cost of splitting.
+ * */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class PlaylistParallelBenchmark {
+    private static final int VIDEOS = 5_000_000;
+    private static final int CHECK_ROUNDS = 4;
+    private static final int ROUNDS = 5;
+
+    // counts the checksum of every video that forEachRemaining hands over
+    private static final class Checker implements Consumer<Video>{
+        long sum;
+
+        @Override
+        public void accept(Video video) {
+            sum += check(video);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        YouTubePlaylist playlist = new YouTubePlaylist();
+        for(int i = 0; i < VIDEOS; i++){
+            playlist.addVideo(new Video("Video #" + i + " - Low Level Design"));
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> parallelism = new ArrayList<>();
+        for(int p = 1; p < cores; p *= 2){
+            parallelism.add(p);
+        }
+        parallelism.add(cores);
+        System.out.println(cores + " core(s) available");
+
+        for(int round = 0; round < ROUNDS; round++){
+            boolean report = round == ROUNDS - 1;
+
+            long begin = System.nanoTime();
+            Checker checker = new Checker();
+            playlist.createIterator().forEachRemaining(checker);
+            long baseline = System.nanoTime() - begin;
+            print("iterator", baseline, baseline, checker.sum, report);
+
+            begin = System.nanoTime();
+            long sum = playlist.stream().mapToLong(PlaylistParallelBenchmark::check).sum();
+            print("stream", System.nanoTime() - begin, baseline, sum, report);
+
+            for(int p : parallelism){
+                ForkJoinPool pool = new ForkJoinPool(p);
+                try {
+                    begin = System.nanoTime();
+                    sum = pool.submit(() -> playlist.parallelStream().mapToLong(PlaylistParallelBenchmark::check).sum())
+                            .get();
+                    print("parallel, " + p + " threads", System.nanoTime() - begin, baseline, sum, report);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    private static long check(Video video){
+        String title = video.getTitle();
+        int hash = 0x811c9dc5;
+        for(int round = 0; round < CHECK_ROUNDS; round++){
+            for(int i = 0, length = title.length(); i < length; i++){
+                hash = (hash ^ title.charAt(i)) * 0x01000193;
+            }
+        }
+        return hash & 0xffff;
+    }
+
+    private static void print(String name, long nanos, long baseline, long checksum, boolean report){
+        if(report){
+            System.out.printf("%-22s %8.1f ms  %5.2fx  (checksum %d)%n", name, nanos / 1e6, (double) baseline / nanos,
+                    checksum);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package behaviouralPattterns.iterator;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// One immutable version of a ConcurrentYouTubePlaylist, a read-only List<Video> and a Playlist of its own.
+class PlaylistSnapshot extends AbstractList<Video> implements RandomAccess, Playlist{
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    // attributes of a video in one int, like CompactVideoStorage: region code << 3 | rating ordinal << 1 | copyrighted
+    private static final int COPYRIGHTED = 1;
+    private static final int RATING_SHIFT = 1;
+    private static final int RATING_MASK = 0b11;
+    private static final int REGION_SHIFT = 3;
+    private static final ConcurrentHashMap<String, Integer> REGIONS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_REGION = new AtomicInteger();
+
+    static final PlaylistSnapshot EMPTY = new PlaylistSnapshot(new Object[WIDTH], BITS, new Leaf(), 0);
+
+    /*
+     * 32 videos and their packed attributes. The tail leaf is shared by consecutive versions: a version only reads
+     * the slots below its own size, and a writer claims the next slot with a CAS on claimed before writing it, so
+     * every slot is written once and never changed. A writer that loses the claim copies the leaf instead.
+     */
+    private static final class Leaf{
+        final Video[] videos = new Video[WIDTH];
+        final int[] attributes = new int[WIDTH];
+        final AtomicInteger claimed = new AtomicInteger();
+
+        // a private copy of the first count slots
+        Leaf copy(int count){
+            Leaf copy = new Leaf();
+            System.arraycopy(videos, 0, copy.videos, 0, count);
+            System.arraycopy(attributes, 0, copy.attributes, 0, count);
+            copy.claimed.set(count);
+            return copy;
+        }
+
+        // writes slot if nobody else took it yet
+        boolean claim(int slot, Video video, int packed){
+            if(!claimed.compareAndSet(slot, slot + 1)){
+                return false;
+            }
+            videos[slot] = video;
+            attributes[slot] = packed;
+            return true;
+        }
+    }
+
+    // trie of Object[WIDTH] nodes, root at level shift, leaves below level BITS; the tail is not in the trie
+    private final Object[] root;
+    private final int shift;
+    private final Leaf tail;
+    private final int size;
+
+    private PlaylistSnapshot(Object[] root, int shift, Leaf tail, int size){
+        this.root = root;
+        this.shift = shift;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    // computed once per addVideo, not again when the append is retried
+    static int attributes(Video video){
+        int packed = video.getAgeRating().ordinal() << RATING_SHIFT | (video.isCopyrighted() ? COPYRIGHTED : 0);
+        if(video.getRegion() == null){
+            return packed | -1 << REGION_SHIFT;
+        }
+        int region = REGIONS.computeIfAbsent(video.getRegion(), name -> NEXT_REGION.getAndIncrement());
+        return packed | region << REGION_SHIFT;
+    }
+
+    // the next version: this one + video, sharing all leaves (the path from the root to a pushed tail is copied)
+    PlaylistSnapshot append(Video video, int attributes){
+        int slot = size - tailOffset();
+        if(slot < WIDTH){
+            Leaf leaf = tail;
+            if(!leaf.claim(slot, video, attributes)){
+                // another writer took this slot in a version of its own
+                leaf = tail.copy(slot);
+                leaf.claim(slot, video, attributes);
+            }
+            return new PlaylistSnapshot(root, shift, leaf, size + 1);
+        }
+        int tailLeaf = tailOffset() >>> BITS;
+        Object[] newRoot;
+        int newShift = shift;
+        if(tailLeaf == 1 << shift){
+            // the trie is full, one level more on top
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(tailLeaf, shift, root, tail);
+        }
+        Leaf leaf = new Leaf();
+        leaf.claim(0, video, attributes);
+        return new PlaylistSnapshot(newRoot, newShift, leaf, size + 1);
+    }
+
+    private static Object[] pushTail(int leaf, int level, Object[] node, Leaf tail){
+        Object[] copy = node.clone();
+        int index = (leaf >>> (level - BITS)) & MASK;
+        if(level == BITS){
+            copy[index] = tail;
+        } else {
+            Object[] child = (Object[]) copy[index];
+            copy[index] = child == null ? newPath(level - BITS, tail) : pushTail(leaf, level - BITS, child, tail);
+        }
+        return copy;
+    }
+
+    private static Object newPath(int level, Leaf tail){
+        if(level == 0){
+            return tail;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, tail);
+        return node;
+    }
+
+    // first position in the tail, always a multiple of 32
+    private int tailOffset(){
+        return size == 0 ? 0 : (size - 1) & ~MASK;
+    }
+
+    // the leaf holding position, its first video is at position & ~MASK
+    private Leaf leafFor(int position){
+        if(position >= tailOffset()){
+            return tail;
+        }
+        Object[] node = root;
+        for(int level = shift; level > BITS; level -= BITS){
+            node = (Object[]) node[(position >>> level) & MASK];
+        }
+        return (Leaf) node[(position >>> BITS) & MASK];
+    }
+
+    // the videos of the leaf holding position, only the first leafLength(position) belong to this snapshot
+    Video[] leafVideos(int position){
+        return leafFor(position).videos;
+    }
+
+    int leafLength(int position){
+        return Math.min(WIDTH, size - (position & ~MASK));
+    }
+
+    @Override
+    public Video get(int position) {
+        Objects.checkIndex(position, size);
+        return leafFor(position).videos[position & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PlaylistIterator createIterator() {
+        return new SnapshotPlaylistIterator(this);
+    }
+
+    @Override
+    public PlaylistIterator createIterator(VideoFilter filter) {
+        return new FilteredPlaylistIterator(this, filter.select(index()));
+    }
+
+    @Override
+    public Spliterator<Video> spliterator() {
+        return new PlaylistSpliterator(this);
+    }
+
+    @Override
+    public Stream<Video> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Stream<Video> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    // the filter bitsets of exactly this version, built from the attribute ints of its leaves
+    public VideoIndex index(){
+        return new VideoIndex() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public BitSet copyrighted() {
+                return bits(COPYRIGHTED, COPYRIGHTED);
+            }
+
+            @Override
+            public BitSet region(String region) {
+                Integer code = REGIONS.get(region);
+                return code == null ? new BitSet() : bits(-1 << REGION_SHIFT, code << REGION_SHIFT);
+            }
+
+            @Override
+            public BitSet rated(AgeRating rating) {
+                return bits(RATING_MASK << RATING_SHIFT, rating.ordinal() << RATING_SHIFT);
+            }
+        };
+    }
+
+    // positions whose attributes & mask == value, reads 4 bytes per video and no Video
+    private BitSet bits(int mask, int value){
+        long[] words = new long[(size + Long.SIZE - 1) / Long.SIZE];
+        for(int first = 0; first < size; first += WIDTH){
+            int[] attributes = leafFor(first).attributes;
+            for(int slot = 0, length = leafLength(first); slot < length; slot++){
+                if((attributes[slot] & mask) == value){
+                    words[(first + slot) >>> 6] |= 1L << (first + slot);
+                }
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+}
@@ -0,0 +1,90 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Playlist spliterator: a YouTubePlaylist that can be split for parallel bulk jobs
+ * ===============================================================================================================
+ *
+ * PlaylistIterator walks the playlist one video after the other, fine for playing it, too slow for bulk jobs over
+ * millions of videos (thumbnail regeneration, transcoding checks, ...). A Spliterator is the traversal the JDK can
+ * split: parallel streams and fork-join tasks keep calling trySplit() and hand the halves to different threads.
+ *
+ *      - balanced: trySplit() hands off the first half of the range [origin, fence), so both halves differ by at
+ *        most one video and the split tree is log2(n) deep
+ *      - exact sizes: SIZED | SUBSIZED, estimateSize() is the real number of videos of every half, so the stream
+ *        can presize its result arrays and the fork-join framework can decide when to stop splitting
+ *      - ORDERED | NONNULL: a playlist has an order, forEachOrdered / collect keep it
+ *
+ * KIM: the fence binds late, at the first traversal, split or size query, like ArrayList's spliterator. Videos added
+ * before that are seen, videos added after that are not. Do not add videos while a parallel job is running.
+ * */
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+class PlaylistSpliterator implements Spliterator<Video>{
+    private final List<Video> videos;
+    private int origin;
+    // -1 until first use
+    private int fence;
+
+    public PlaylistSpliterator(List<Video> videos){
+        this(videos, 0, -1);
+    }
+
+    private PlaylistSpliterator(List<Video> videos, int origin, int fence){
+        this.videos = videos;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    private int fence(){
+        if(fence < 0){
+            fence = videos.size();
+        }
+        return fence;
+    }
+
+    @Override
+    public Spliterator<Video> trySplit() {
+        int end = fence();
+        int middle = (origin + end) >>> 1;
+        if(middle <= origin){
+            return null;
+        }
+        // hands off [origin, middle) and keeps [middle, end), so the prefix stays in front in encounter order
+        PlaylistSpliterator prefix = new PlaylistSpliterator(videos, origin, middle);
+        origin = middle;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Video> action) {
+        if(origin >= fence()){
+            return false;
+        }
+        action.accept(videos.get(origin++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Video> action) {
+        List<Video> list = videos;
+        int end = fence();
+        for(int i = origin; i < end; i++){
+            action.accept(list.get(i));
+        }
+        origin = end;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence() - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,29 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Playlist store: where a big playlist really lives (database, object store, ...), read page by page
+ * ===============================================================================================================
+ *
+ * YouTubePlaylist keeps every Video in an ArrayList, with millions of entries that is too much memory, and the whole
+ * list has to be loaded before the first video can be played. A PlaylistStore is read one page at a time instead,
+ * see PagedPlaylistIterator.
+ *
+ * FilePlaylistStore is the local stand-in for the real store, two files in one directory:
+ *      videos.dat  one record per video, back to back: a byte with the copyright flag and age rating, the region
+ *                  (unsigned short length + UTF-8), then the title as UTF-8 up to the next record
+ *      videos.idx  one long per video: where its record starts in videos.dat, plus one more long = end of the last
+ * So reading videos [first, first + n) is two positional reads: n + 1 offsets from the index, then the one byte range
+ * of videos.dat they point to. The page is decoded into Video objects only after that, with all their attributes,
+ * so filtered iterators over a StoredPlaylist see the same videos as over the YouTubePlaylist they were written from.
+ * */
+
+import java.io.IOException;
+
+interface PlaylistStore{
+    long size() throws IOException;
+
+    // Reads videos [first, first + page.length) into page, returns how many were read (less at the end).
+    int readPage(long first, Video[] page) throws IOException;
+}
+
@@ -0,0 +1,42 @@
+package behaviouralPattterns.iterator;
+
+import java.util.NoSuchElementException;
+
+// The naive filter for playlists without an index: reads every video and skips the ones that do not match.
+class ScanningPlaylistIterator implements PlaylistIterator{
+    private final PlaylistIterator videos;
+    private final VideoFilter filter;
+    private Video upcoming;
+
+    public ScanningPlaylistIterator(PlaylistIterator videos, VideoFilter filter){
+        this.videos = videos;
+        this.filter = filter;
+        advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return upcoming != null;
+    }
+
+    @Override
+    public Video next() {
+        if(upcoming == null){
+            throw new NoSuchElementException();
+        }
+        Video video = upcoming;
+        advance();
+        return video;
+    }
+
+    private void advance(){
+        upcoming = null;
+        while(videos.hasNext()){
+            Video video = videos.next();
+            if(filter.test(video)){
+                upcoming = video;
+                return;
+            }
+        }
+    }
+}
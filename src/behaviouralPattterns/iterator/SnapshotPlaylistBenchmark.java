@@ -0,0 +1,144 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Benchmark: writer throughput while readers iterate, ConcurrentYouTubePlaylist vs a read-write locked ArrayList
+ * ===============================================================================================================
+ *
+ * The playlist starts with 1M videos. WRITERS threads keep appending for RUN_MILLIS while 0, 1, 2, 4, 8 reader threads
+ * keep doing full passes over the playlist (every pass counts its videos, a pass must see a consistent playlist):
+ *      snapshot:  ConcurrentYouTubePlaylist, a pass is snapshot().createIterator(), writers CAS lock-free
+ *      rw-locked: ArrayList + ReentrantReadWriteLock, the only way to give an ArrayList pass a consistent view is to
+ *                 hold the read lock for the whole pass, writers take the write lock for every add
+ * Reported: appends/s of all writers together, and videos/s read by all readers together (the two playlists grow
+ * at different rates, so passes/s would not compare).
+ *
+ * KIM: plain main() harness with a warm-up run, not JMH. With fewer cores than threads the threads only take turns:
+ * a locked writer that waits for a reader pass hands its time to the readers, so on such a box this mostly shows how
+ * the CPU is shared. Run it on a machine with at least WRITERS + readers cores to see the lock itself.
+ * */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SnapshotPlaylistBenchmark {
+    private static final int INITIAL_VIDEOS = 1_000_000;
+    private static final int WRITERS = 2;
+    private static final int[] READERS = {0, 1, 2, 4, 8};
+    private static final long RUN_MILLIS = 2_000;
+
+    // what the benchmark needs from both playlists
+    private interface Target{
+        void add(Video video);
+
+        // one full consistent pass, returns the number of videos seen
+        long pass();
+    }
+
+    private static final class SnapshotTarget implements Target{
+        private final ConcurrentYouTubePlaylist playlist = new ConcurrentYouTubePlaylist();
+
+        @Override
+        public void add(Video video) {
+            playlist.addVideo(video);
+        }
+
+        @Override
+        public long pass() {
+            PlaylistSnapshot snapshot = playlist.snapshot();
+            PlaylistIterator iterator = snapshot.createIterator();
+            long count = 0;
+            while(iterator.hasNext()){
+                iterator.next();
+                count++;
+            }
+            if(count != snapshot.size()){
+                throw new IllegalStateException("snapshot pass saw " + count + " of " + snapshot.size());
+            }
+            return count;
+        }
+    }
+
+    private static final class LockedTarget implements Target{
+        private final List<Video> videos = new ArrayList<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public void add(Video video) {
+            lock.writeLock().lock();
+            try {
+                videos.add(video);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public long pass() {
+            lock.readLock().lock();
+            try {
+                PlaylistIterator iterator = new YouTubePlaylistIterator(videos);
+                long count = 0;
+                while(iterator.hasNext()){
+                    iterator.next();
+                    count++;
+                }
+                return count;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Video video = new Video("Low Level Design");
+        for(int round = 0; round < 2; round++){
+            boolean report = round == 1;
+            for(int readers : READERS){
+                run("snapshot", new SnapshotTarget(), video, readers, report);
+                run("rw-locked", new LockedTarget(), video, readers, report);
+            }
+        }
+    }
+
+    private static void run(String name, Target target, Video video, int readers, boolean report)
+            throws InterruptedException {
+        for(int i = 0; i < INITIAL_VIDEOS; i++){
+            target.add(video);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder appends = new LongAdder();
+        LongAdder videosRead = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for(int w = 0; w < WRITERS; w++){
+            threads.add(new Thread(() -> {
+                while(running.get()){
+                    target.add(video);
+                    appends.increment();
+                }
+            }));
+        }
+        for(int r = 0; r < readers; r++){
+            threads.add(new Thread(() -> {
+                while(running.get()){
+                    videosRead.add(target.pass());
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        if(report){
+            System.out.printf("%-10s %d readers: %6.2f M appends/s  %7.1f M videos read/s%n", name, readers,
+                    appends.sum() / seconds / 1e6, videosRead.sum() / seconds / 1e6);
+        }
+    }
+}
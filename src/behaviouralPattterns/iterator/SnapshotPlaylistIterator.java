@@ -0,0 +1,80 @@
+package behaviouralPattterns.iterator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// concrete iterator - traversal algo 3: one snapshot, leaf by leaf
+class SnapshotPlaylistIterator implements PlaylistIterator{
+    private final PlaylistSnapshot snapshot;
+    private final int size;
+    private Video[] leaf;
+    // slots [slot, limit) of leaf are still to come
+    private int slot;
+    private int limit;
+    private int position;
+
+    public SnapshotPlaylistIterator(PlaylistSnapshot snapshot){
+        this.snapshot = snapshot;
+        this.size = snapshot.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < size;
+    }
+
+    @Override
+    public Video next() {
+        if(!hasNext()){
+            throw new NoSuchElementException();
+        }
+        if(slot == limit){
+            nextLeaf();
+        }
+        position++;
+        return leaf[slot++];
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Video> action) {
+        while(hasNext()){
+            if(slot == limit){
+                nextLeaf();
+            }
+            Video[] videos = leaf;
+            for(int i = slot; i < limit; i++){
+                action.accept(videos[i]);
+            }
+            position += limit - slot;
+            slot = limit;
+        }
+    }
+
+    // A batch never crosses a leaf, so it is a view of the leaf (at most 32 videos).
+    @Override
+    public List<Video> nextBatch(int max) {
+        if(max < 0){
+            throw new IllegalArgumentException("max must not be negative");
+        }
+        if(!hasNext()){
+            return Collections.emptyList();
+        }
+        if(slot == limit){
+            nextLeaf();
+        }
+        int end = (int) Math.min(limit, (long) slot + max);
+        List<Video> batch = Collections.unmodifiableList(Arrays.asList(leaf).subList(slot, end));
+        position += end - slot;
+        slot = end;
+        return batch;
+    }
+
+    private void nextLeaf(){
+        leaf = snapshot.leafVideos(position);
+        limit = snapshot.leafLength(position);
+        slot = 0;
+    }
+}
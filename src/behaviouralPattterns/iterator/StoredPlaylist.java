@@ -0,0 +1,35 @@
+package behaviouralPattterns.iterator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// A playlist that is not held in memory, every iterator reads it page by page from the store.
+class StoredPlaylist implements Playlist{
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    // shared by all stored playlists, daemon threads so an abandoned iterator never keeps the JVM alive
+    private static final ExecutorService PREFETCHER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "playlist-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final PlaylistStore store;
+    private final int pageSize;
+    private final Executor prefetcher;
+
+    public StoredPlaylist(PlaylistStore store){
+        this(store, DEFAULT_PAGE_SIZE, PREFETCHER);
+    }
+
+    public StoredPlaylist(PlaylistStore store, int pageSize, Executor prefetcher){
+        this.store = store;
+        this.pageSize = pageSize;
+        this.prefetcher = prefetcher;
+    }
+
+    @Override
+    public PlaylistIterator createIterator() {
+        return new PagedPlaylistIterator(store, pageSize, prefetcher);
+    }
+}
@@ -0,0 +1,37 @@
+package behaviouralPattterns.iterator;
+
+class Video{
+    public static final String ANY_REGION = "ANY";
+
+    String title;
+    boolean copyrighted;
+    String region;
+    AgeRating ageRating;
+
+    public Video(String title){
+        this(title, false, ANY_REGION, AgeRating.ALL);
+    }
+
+    public Video(String title, boolean copyrighted, String region, AgeRating ageRating){
+        this.title=title;
+        this.copyrighted=copyrighted;
+        this.region=region;
+        this.ageRating=ageRating;
+    }
+
+    public String getTitle(){
+        return title;
+    }
+
+    public boolean isCopyrighted(){
+        return copyrighted;
+    }
+
+    public String getRegion(){
+        return region;
+    }
+
+    public AgeRating getAgeRating(){
+        return ageRating;
+    }
+}
@@ -0,0 +1,96 @@
+package behaviouralPattterns.iterator;
+
+/*
+ * ===============================================================================================================
+ * Filtered iterators: skip videos by copyright, region and age rating without looking at the skipped ones
+ * ===============================================================================================================
+ *
+ * The naive way to skip copyright videos wraps the normal iterator and throws away every video that does not match
+ * (ScanningPlaylistIterator.java). Every video is still loaded and tested, a filter that matches 10 videos of 10M
+ * costs as much as playing the whole playlist.
+ *
+ * YouTubePlaylist keeps a VideoIndex instead (BitSetVideoIndex): one BitSet per attribute value, bit i set when
+ * video i has it.
+ *      - a VideoFilter turns into a BitSet of matching positions, and() / or() / negate() are BitSet and / or / flip,
+ *        64 videos per long, no Video is touched
+ *      - FilteredPlaylistIterator jumps from match to match with BitSet.nextSetBit, so it only loads the matches
+ * So a sparse filter over a huge playlist costs about n / 64 word operations to build + the matches themselves.
+ *
+ * Every filter also has test(Video), so playlists without an index (StoredPlaylist) can still scan.
+ *
+ * KIM: the BitSet of an iterator is built in createIterator(filter), videos added after that are not seen by it.
+ * */
+
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+interface VideoFilter{
+    // does this one video match
+    boolean test(Video video);
+
+    // positions of the matching videos in the index, a new BitSet the caller may change
+    BitSet select(VideoIndex index);
+
+    static VideoFilter copyrighted(){
+        return of(Video::isCopyrighted, VideoIndex::copyrighted);
+    }
+
+    static VideoFilter region(String region){
+        return of(video -> region.equals(video.getRegion()), index -> index.region(region));
+    }
+
+    static VideoFilter rated(AgeRating rating){
+        return of(video -> video.getAgeRating() == rating, index -> index.rated(rating));
+    }
+
+    // everything a viewer of this rating may watch: ALL for ALL, ALL + TEEN for TEEN, ...
+    static VideoFilter suitableFor(AgeRating viewer){
+        VideoFilter suitable = rated(AgeRating.ALL);
+        for(AgeRating rating : AgeRating.values()){
+            if(rating != AgeRating.ALL && rating.compareTo(viewer) <= 0){
+                suitable = suitable.or(rated(rating));
+            }
+        }
+        return suitable;
+    }
+
+    default VideoFilter and(VideoFilter other){
+        return of(video -> test(video) && other.test(video), index -> {
+            BitSet matches = select(index);
+            matches.and(other.select(index));
+            return matches;
+        });
+    }
+
+    default VideoFilter or(VideoFilter other){
+        return of(video -> test(video) || other.test(video), index -> {
+            BitSet matches = select(index);
+            matches.or(other.select(index));
+            return matches;
+        });
+    }
+
+    default VideoFilter negate(){
+        return of(video -> !test(video), index -> {
+            BitSet matches = select(index);
+            matches.flip(0, index.size());
+            return matches;
+        });
+    }
+
+    static VideoFilter of(Predicate<Video> predicate, Function<VideoIndex, BitSet> selector){
+        return new VideoFilter() {
+            @Override
+            public boolean test(Video video) {
+                return predicate.test(video);
+            }
+
+            @Override
+            public BitSet select(VideoIndex index) {
+                return selector.apply(index);
+            }
+        };
+    }
+}
+
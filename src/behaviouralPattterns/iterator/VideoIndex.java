@@ -0,0 +1,14 @@
+package behaviouralPattterns.iterator;
+
+import java.util.BitSet;
+
+// Which positions of a playlist have which attribute value, every getter returns a new BitSet.
+interface VideoIndex{
+    int size();
+
+    BitSet copyrighted();
+
+    BitSet region(String region);
+
+    BitSet rated(AgeRating rating);
+}
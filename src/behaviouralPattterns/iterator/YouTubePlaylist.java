@@ -0,0 +1,56 @@
+package behaviouralPattterns.iterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class YouTubePlaylist implements Playlist{
+    private final List<Video> videos;
+    // per attribute bitsets for the filtered iterators
+    private final BitSetVideoIndex index = new BitSetVideoIndex();
+
+    public YouTubePlaylist(){
+        this(new ArrayList<>());
+    }
+
+    // videos are kept in storage, e.g. CompactVideoStorage for playlists with millions of videos. Videos already in
+    // storage become the start of the playlist.
+    public YouTubePlaylist(List<Video> storage){
+        this.videos = storage;
+        for(Video video : storage){
+            index.add(video);
+        }
+    }
+
+    public void addVideo(Video video){
+        videos.add(video);
+        index.add(video);
+    }
+
+    @Override
+    public PlaylistIterator createIterator() {
+        return new YouTubePlaylistIterator(videos);
+    }
+
+    // jumps from match to match in the bitsets instead of testing every video
+    @Override
+    public PlaylistIterator createIterator(VideoFilter filter) {
+        return new FilteredPlaylistIterator(videos, filter.select(index));
+    }
+
+    // splittable traversal for bulk jobs, see PlaylistSpliterator.java
+    public Spliterator<Video> spliterator(){
+        return new PlaylistSpliterator(videos);
+    }
+
+    public Stream<Video> stream(){
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    // runs in the common fork-join pool, or in the pool whose task calls it
+    public Stream<Video> parallelStream(){
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
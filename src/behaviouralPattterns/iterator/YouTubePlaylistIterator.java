@@ -0,0 +1,54 @@
+package behaviouralPattterns.iterator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// concrete iterator - traversal algo 1
+class YouTubePlaylistIterator implements PlaylistIterator{
+    private List<Video> videos;
+    private int position;
+
+    public YouTubePlaylistIterator(List<Video> videos){
+        this.videos=videos;
+        this.position=0;
+    }
+
+    @Override
+    public boolean hasNext(){
+        return position < videos.size();
+    }
+
+    @Override
+    public Video next(){
+        if(!hasNext()){
+            throw new NoSuchElementException();
+        }
+        return videos.get(position++);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Video> action){
+        List<Video> remaining = videos;
+        int size = remaining.size();
+        for(int i = position; i < size; i++){
+            action.accept(remaining.get(i));
+        }
+        position = size;
+    }
+
+    @Override
+    public List<Video> nextBatch(int max){
+        if(max < 0){
+            throw new IllegalArgumentException("max must not be negative");
+        }
+        int end = (int) Math.min(videos.size(), (long) position + max);
+        // a copy: a subList view of the playlist's list throws ConcurrentModificationException after addVideo()
+        Video[] copy = videos.subList(position, end).toArray(new Video[0]);
+        List<Video> batch = Collections.unmodifiableList(Arrays.asList(copy));
+        position = end;
+        return batch;
+    }
+}
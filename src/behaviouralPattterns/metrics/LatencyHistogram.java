@@ -0,0 +1,103 @@
+package behaviouralPattterns.metrics;
+
+/*
+ * =================================================================================================================
+ * Latency histogram shared by the command and strategy packages
+ * =================================================================================================================
+ *
+ * Works like HdrHistogram: buckets are powers of two, each split into 16 linear sub-buckets, so any recorded value
+ * is off by at most ~6% and the whole 0ns..Long.MAX_VALUE range fits in ~1000 counters. Recording is an index
+ * computation + one atomic increment, nothing is allocated on the hot path.
+ *
+ *      snapshot(): copies the counters, the histogram keeps counting (InstrumentedRemoteControl, totals since start)
+ *      drain():    copies and resets the counters, so every call sees one interval (StrategyRouter, p99 per interval)
+ *
+ * KIM: this is the only public class of behaviouralPattterns outside the demos, the other packages keep everything
+ * package-private. A snapshot is not atomic against concurrent record() calls, which is fine for monitoring.
+ * */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+public class LatencyHistogram{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos){
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        max.accumulate(value);
+    }
+
+    static int indexOf(long value){
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Highest value that lands in the bucket, so percentiles are reported conservatively.
+    static long highestValueAt(int index){
+        if(index < SUB_BUCKETS){
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // Everything recorded so far.
+    public Snapshot snapshot(){
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, max.get());
+    }
+
+    // Everything recorded since the last drain(), and starts a new interval.
+    public Snapshot drain(){
+        long[] interval = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            interval[i] = counts.getAndSet(i, 0);
+            total += interval[i];
+        }
+        return new Snapshot(interval, total, max.getThenReset());
+    }
+
+    public static final class Snapshot{
+        private final long[] counts;
+        public final long count;
+        public final long max;
+
+        private Snapshot(long[] counts, long count, long max){
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        public long percentile(double percentile){
+            if(count == 0){
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++){
+                seen += counts[i];
+                if(seen >= rank){
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
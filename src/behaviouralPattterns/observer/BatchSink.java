@@ -0,0 +1,5 @@
+package behaviouralPattterns.observer;
+
+interface BatchSink{
+    void send(NotificationBatch batch);
+}
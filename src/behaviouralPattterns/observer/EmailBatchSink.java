@@ -0,0 +1,12 @@
+package behaviouralPattterns.observer;
+
+class EmailBatchSink implements BatchSink{
+    @Override
+    public void send(NotificationBatch batch) {
+        System.out.println("Email provider: sending " + batch.size + " emails in one request");
+        for(int i = 0; i < batch.size; i++){
+            System.out.println("  Email sent to " + batch.recipients[i] + ": New video uploaded - "
+                    + batch.videoTitles[i]);
+        }
+    }
+}
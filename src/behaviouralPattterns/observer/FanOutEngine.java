@@ -0,0 +1,245 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Fan-out engine: parallel, sharded delivery of one upload to many subscribers
+ * ===============================================================================================================
+ *
+ * notifySubscribers() loops over every subscriber on the uploading thread, so a channel with 5M subscribers blocks
+ * uploadVideo() until the last email is sent. (This is the "too many observers" case from Observer.java.)
+ *
+ * FanOutEngine hands the subscriber snapshot to the pool and returns right away with a CompletableFuture that
+ * completes when every subscriber was notified. deliver() itself is O(1): one pool task sorts the snapshot by
+ * subscriber class (an int[] of indexes per class, the subscribers are not copied) and every class has its own lane:
+ *      lane = queue of batches (one per upload) + at most maxInFlightPerType shards running at once
+ * A lane does not cut its batches up front, it pulls the next shardSize indexes from the batch at its head whenever
+ * one of its shard slots is free. So EmailSubscriber shards can never take more than maxInFlightPerType pool threads
+ * and a slow Email lane only delays Email batches, MobileSubscriber shards keep running on the other threads.
+ *
+ * Backpressure: a lane never has more than maxInFlightPerType shards in the pool, the rest of its work is a cursor
+ * into a batch. Nothing runs on the uploading thread, so a slow lane can not slow the uploader down either.
+ *
+ * A subscriber that throws (anything, also an Error) does not stop its shard, the rest of the shard is still
+ * delivered. The upload's future then completes exceptionally with the first failure (later ones are attached as
+ * suppressed, up to a limit).
+ *
+ * KIM: deliver() after close() throws IllegalStateException. Uploads accepted before close() are still delivered,
+ * unless their shards are rejected by the stopped pool, then those subscribers are skipped and the future fails.
+ * */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class FanOutEngine implements AutoCloseable{
+    public static final int DEFAULT_SHARD_SIZE = 1024;
+    private static final int MAX_SUPPRESSED = 16;
+
+    // One upload being delivered.
+    private static final class Upload{
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // starts at 1 so the upload can not complete while the snapshot is still being sorted into batches
+        final AtomicInteger pendingBatches = new AtomicInteger(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        void fail(Throwable e){
+            if(!failure.compareAndSet(null, e) && failures.incrementAndGet() <= MAX_SUPPRESSED){
+                failure.get().addSuppressed(e);
+            }
+        }
+
+        void batchDone(){
+            if(pendingBatches.decrementAndGet() == 0){
+                Throwable e = failure.get();
+                if(e == null){
+                    done.complete(null);
+                }
+                else{
+                    done.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // The subscribers of one class in one upload, as indexes into the upload's snapshot.
+    private static final class Batch{
+        final Subscriber[] snapshot;
+        final int[] indexes;
+        final int count;
+        final String videoTitle;
+        final Upload upload;
+        // next index a lane hands out, shards are cut lazily from here
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger unfinishedShards;
+
+        Batch(Subscriber[] snapshot, int[] indexes, int count, int shardSize, String videoTitle, Upload upload){
+            this.snapshot = snapshot;
+            this.indexes = indexes;
+            this.count = count;
+            this.videoTitle = videoTitle;
+            this.upload = upload;
+            this.unfinishedShards = new AtomicInteger((count + shardSize - 1) / shardSize);
+        }
+
+        void deliver(int from, int to){
+            try {
+                for(int i = from; i < to; i++){
+                    try {
+                        snapshot[indexes[i]].update(videoTitle);
+                    } catch (Throwable e) {
+                        upload.fail(e);
+                    }
+                }
+            } finally {
+                // always, or the upload's future never completes
+                shardDone();
+            }
+        }
+
+        void shardDone(){
+            if(unfinishedShards.decrementAndGet() == 0){
+                upload.batchDone();
+            }
+        }
+    }
+
+    private static final class IndexList{
+        int[] indexes = new int[16];
+        int count;
+
+        void add(int index){
+            if(count == indexes.length){
+                indexes = Arrays.copyOf(indexes, count * 2);
+            }
+            indexes[count++] = index;
+        }
+    }
+
+    private final class Lane{
+        private final Queue<Batch> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+
+        void submit(Batch batch){
+            waiting.offer(batch);
+            drain();
+        }
+
+        private void drain(){
+            while(!waiting.isEmpty()){
+                int current = running.get();
+                if(current >= maxInFlightPerType){
+                    // a running shard will call drain() again when it finishes
+                    return;
+                }
+                if(!running.compareAndSet(current, current + 1)){
+                    continue;
+                }
+                Batch batch = waiting.peek();
+                int from = batch == null ? 0 : batch.next.getAndAdd(shardSize);
+                if(batch == null || from >= batch.count){
+                    // another thread took the last shard of this batch
+                    if(batch != null){
+                        waiting.remove(batch);
+                    }
+                    running.decrementAndGet();
+                    continue;
+                }
+                int to = Math.min(from + shardSize, batch.count);
+                if(to == batch.count){
+                    waiting.remove(batch);
+                }
+                try {
+                    pool.execute(() -> {
+                        try {
+                            batch.deliver(from, to);
+                        } finally {
+                            running.decrementAndGet();
+                            drain();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // closed while this batch was waiting: skip the shard but still count it, so the future fails
+                    running.decrementAndGet();
+                    batch.upload.fail(e);
+                    batch.shardDone();
+                }
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int shardSize;
+    private final int maxInFlightPerType;
+    private final Map<Class<?>, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public FanOutEngine(int parallelism){
+        this(parallelism, DEFAULT_SHARD_SIZE, Math.max(1, parallelism / 2));
+    }
+
+    public FanOutEngine(int parallelism, int shardSize, int maxInFlightPerType){
+        if(parallelism < 1 || shardSize < 1 || maxInFlightPerType < 1){
+            throw new IllegalArgumentException("parallelism, shardSize and maxInFlightPerType must be positive");
+        }
+        // asyncMode = FIFO, shards are independent events, not a divide and conquer job
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.shardSize = shardSize;
+        this.maxInFlightPerType = maxInFlightPerType;
+    }
+
+    public CompletableFuture<Void> deliver(Subscriber[] subscribers, String videoTitle){
+        if(closed){
+            throw new IllegalStateException("FanOutEngine is closed");
+        }
+        Upload upload = new Upload();
+        try {
+            pool.execute(() -> split(subscribers, videoTitle, upload));
+        } catch (RejectedExecutionException e) {
+            // close() won the race, nothing was counted for this upload yet
+            throw new IllegalStateException("FanOutEngine is closed", e);
+        }
+        return upload.done;
+    }
+
+    // Runs on the pool: one batch per subscriber class, the lanes cut them into shards when they have room.
+    private void split(Subscriber[] subscribers, String videoTitle, Upload upload){
+        try {
+            Map<Class<?>, IndexList> byType = new HashMap<>();
+            Class<?> lastType = null;
+            IndexList last = null;
+            for(int i = 0; i < subscribers.length; i++){
+                Class<?> type = subscribers[i].getClass();
+                // subscribers of one type tend to come in runs, skip the map lookup then
+                IndexList list = type == lastType ? last : byType.computeIfAbsent(type, t -> new IndexList());
+                list.add(i);
+                lastType = type;
+                last = list;
+            }
+            for(Map.Entry<Class<?>, IndexList> entry : byType.entrySet()){
+                IndexList list = entry.getValue();
+                upload.pendingBatches.incrementAndGet();
+                Batch batch = new Batch(subscribers, list.indexes, list.count, shardSize, videoTitle, upload);
+                lanes.computeIfAbsent(entry.getKey(), t -> new Lane()).submit(batch);
+            }
+        } catch (Throwable e) {
+            upload.fail(e);
+        } finally {
+            upload.batchDone();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,14 @@
+package behaviouralPattterns.observer;
+
+// A batch of notifications for one subscriber type, recipients[i] gets videoTitles[i] for i < size.
+class NotificationBatch{
+    final String[] recipients;
+    final String[] videoTitles;
+    final int size;
+
+    NotificationBatch(String[] recipients, String[] videoTitles, int size){
+        this.recipients = recipients;
+        this.videoTitles = videoTitles;
+        this.size = size;
+    }
+}
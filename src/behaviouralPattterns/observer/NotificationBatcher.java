@@ -0,0 +1,143 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Batched delivery: one provider call per batch instead of one per notification
+ * ===============================================================================================================
+ *
+ * Every Subscriber.update() is one email / one push. Email and push providers charge (time, money, connections) per
+ * request, and a single request can carry hundreds of messages, so sending them one by one is the expensive way.
+ *
+ * With a NotificationBatcher, EmailSubscriber / MobileSubscriber do not send anything in update(), they only add
+ * (recipient, videoTitle) to the buffer of their subscriber type. A buffer is handed to that type's BatchSink when:
+ *      1) it reaches maxBatchSize notifications, or
+ *      2) maxDelayMillis passed (a timer flushes whatever is buffered, so a quiet channel is not delayed forever).
+ * Sinks run on the batcher's own thread, so update() (and the upload/fan-out thread) never waits for a provider.
+ *
+ * Buffers are two parallel String arrays (recipients, titles) instead of a list of small notification objects, so
+ * adding a notification allocates nothing; a new pair of arrays is allocated once per batch.
+ *
+ * Client still only sees the Subscriber interface: the channel calls update() exactly like before.
+ *
+ * KIM: after close() add() throws IllegalStateException, nothing is buffered that would never be sent. A sink that
+ * throws loses its batch (no retry here, use the NotificationOutbox for that), failedNotifications() counts them.
+ * */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class NotificationBatcher implements AutoCloseable{
+    private final class Buffer{
+        private final BatchSink sink;
+        private String[] recipients = new String[maxBatchSize];
+        private String[] videoTitles = new String[maxBatchSize];
+        private int size;
+
+        Buffer(BatchSink sink){
+            this.sink = sink;
+        }
+
+        // send() only queues the batch on the sender, so it is done under the lock: close() flushes every buffer
+        // under the same lock before it shuts the sender down, so no batch can reach a stopped sender.
+        synchronized void add(String recipient, String videoTitle){
+            if(closed){
+                throw new IllegalStateException("NotificationBatcher is closed");
+            }
+            recipients[size] = recipient;
+            videoTitles[size] = videoTitle;
+            if(++size == maxBatchSize){
+                send(takeBatch());
+            }
+        }
+
+        synchronized void flush(){
+            if(size > 0){
+                send(takeBatch());
+            }
+        }
+
+        // caller holds the lock
+        private NotificationBatch takeBatch(){
+            NotificationBatch batch = new NotificationBatch(recipients, videoTitles, size);
+            recipients = new String[maxBatchSize];
+            videoTitles = new String[maxBatchSize];
+            size = 0;
+            return batch;
+        }
+
+        private void send(NotificationBatch batch){
+            sender.execute(() -> {
+                try {
+                    sink.send(batch);
+                } catch (RuntimeException e) {
+                    failedNotifications.addAndGet(batch.size);
+                    System.out.println("Failed to deliver a batch of " + batch.size + " notifications: " + e);
+                }
+            });
+        }
+    }
+
+    private final int maxBatchSize;
+    private final Map<Class<? extends Subscriber>, Buffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong failedNotifications = new AtomicLong();
+    private volatile boolean closed;
+    // one thread runs the timer and all sink calls
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationBatcher(int maxBatchSize, long maxDelayMillis){
+        if(maxBatchSize < 1 || maxDelayMillis < 1){
+            throw new IllegalArgumentException("maxBatchSize and maxDelayMillis must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        sender.scheduleWithFixedDelay(this::flush, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public NotificationBatcher register(Class<? extends Subscriber> subscriberType, BatchSink sink){
+        if(buffers.putIfAbsent(subscriberType, new Buffer(sink)) != null){
+            throw new IllegalArgumentException("a sink is already registered for " + subscriberType.getSimpleName());
+        }
+        return this;
+    }
+
+    public void add(Class<? extends Subscriber> subscriberType, String recipient, String videoTitle){
+        Buffer buffer = buffers.get(subscriberType);
+        if(buffer == null){
+            throw new IllegalStateException("no sink registered for " + subscriberType.getSimpleName());
+        }
+        buffer.add(recipient, videoTitle);
+    }
+
+    // Hands every non-empty buffer to its sink, no matter how small.
+    public void flush(){
+        for(Buffer buffer : buffers.values()){
+            buffer.flush();
+        }
+    }
+
+    // notifications whose batch the sink failed to send
+    public long failedNotifications(){
+        return failedNotifications.get();
+    }
+
+    // Flushes what is left and waits until every batch has been sent. If interrupted while waiting, the batches
+    // still queued are sent anyway and the interrupt flag is set again.
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
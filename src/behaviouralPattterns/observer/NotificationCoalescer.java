@@ -0,0 +1,153 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Notification coalescer: one digest per subscriber for a burst of uploads
+ * ===============================================================================================================
+ *
+ * A channel that bulk uploads 10 videos calls notifySubscribers() 10 times, so every subscriber gets 10 emails in a
+ * minute. The coalescer sits in front of delivery and holds notifications per subscriber for windowMillis:
+ *      - first notification for a subscriber opens its window
+ *      - more uploads inside the window are added to the same pending digest
+ *      - when the window closes the subscriber gets ONE update(): the title itself if there was only one upload,
+ *        otherwise a digest like "3 new videos: A, B, C"
+ *
+ * Memory per waiting subscriber is bounded: at most maxTitlesPerDigest titles are kept, later ones only increase a
+ * counter ("... and 7 more"). A timer checks the pending digests every windowMillis, so a window closes between
+ * windowMillis and 2 * windowMillis after it opened, and every digest is looked at no more than twice.
+ *
+ * KIM: digests go straight to Subscriber.update() from the coalescer's thread. offer() after close() throws
+ * IllegalStateException, close() waits for offers in flight so every accepted notification is delivered.
+ * */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+class NotificationCoalescer implements AutoCloseable{
+    private final class PendingDigest{
+        final long openedAt = System.nanoTime();
+        final String[] titles = new String[maxTitlesPerDigest];
+        int count;
+        boolean closed;
+
+        // false if the digest was already closed by the timer, the caller then opens a new one
+        synchronized boolean add(String videoTitle){
+            if(closed){
+                return false;
+            }
+            if(count < titles.length){
+                titles[count] = videoTitle;
+            }
+            count++;
+            return true;
+        }
+
+        // null if it was already closed
+        synchronized String close(){
+            if(closed){
+                return null;
+            }
+            closed = true;
+            if(count == 1){
+                return titles[0];
+            }
+            StringBuilder digest = new StringBuilder().append(count).append(" new videos: ");
+            int kept = Math.min(count, titles.length);
+            for(int i = 0; i < kept; i++){
+                if(i > 0){
+                    digest.append(", ");
+                }
+                digest.append(titles[i]);
+            }
+            if(count > kept){
+                digest.append(" ... and ").append(count - kept).append(" more");
+            }
+            return digest.toString();
+        }
+    }
+
+    private final long windowNanos;
+    private final int maxTitlesPerDigest;
+    private final Map<Subscriber, PendingDigest> pending = new ConcurrentHashMap<>();
+    // offers share the read lock, close() takes the write lock to wait for them
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationCoalescer(long windowMillis, int maxTitlesPerDigest){
+        if(windowMillis < 1 || maxTitlesPerDigest < 1){
+            throw new IllegalArgumentException("windowMillis and maxTitlesPerDigest must be positive");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxTitlesPerDigest = maxTitlesPerDigest;
+        timer.scheduleWithFixedDelay(() -> flush(false), windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void offer(Subscriber[] recipients, String videoTitle){
+        closeLock.readLock().lock();
+        try {
+            if(closed){
+                throw new IllegalStateException("NotificationCoalescer is closed");
+            }
+            for(Subscriber recipient : recipients){
+                while(!pending.computeIfAbsent(recipient, r -> new PendingDigest()).add(videoTitle)){
+                    // lost the race with the timer closing this digest, it is being removed, try again
+                    Thread.onSpinWait();
+                }
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    public int pendingSubscribers(){
+        return pending.size();
+    }
+
+    private void flush(boolean all){
+        long now = System.nanoTime();
+        for(Map.Entry<Subscriber, PendingDigest> entry : pending.entrySet()){
+            PendingDigest digest = entry.getValue();
+            if(all || now - digest.openedAt >= windowNanos){
+                String text = digest.close();
+                pending.remove(entry.getKey(), digest);
+                if(text == null){
+                    // closed by the other flush, close() after an interrupted wait
+                    continue;
+                }
+                try {
+                    entry.getKey().update(text);
+                } catch (RuntimeException e) {
+                    System.out.println("Failed to deliver digest: " + e);
+                }
+            }
+        }
+    }
+
+    // Sends every pending digest right away and stops the timer. An interrupt while waiting for the timer is kept
+    // in the interrupt flag, the digests are sent anyway.
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+    }
+}
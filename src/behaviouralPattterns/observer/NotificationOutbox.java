@@ -0,0 +1,452 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Notification outbox: durable delivery with retry, backoff and dead letters
+ * ===============================================================================================================
+ *
+ * Problem: in notifySubscribers() one subscriber that throws aborts the loop, every subscriber after it silently
+ * misses the upload, and a crash in the middle of a fan-out loses the rest too. This is the "tight control / retry"
+ * case from the Observer.java notes, where we said to move to something like a message broker. The outbox is the
+ * local, single process version of that.
+ *
+ * Flow:
+ *      1) publish(): write one record per (subscriber, video) to the active segment file and fsync once for the
+ *         whole upload. Only after that does anyone start delivering, so nothing is lost if we crash.
+ *      2) worker threads call subscriber.update(). Success -> the record's sequence number goes to the segment's
+ *         .acks file.
+ *      3) failure -> retried after base * 2^(attempt - 1) ms (with jitter, capped at maxBackoffMillis). Other
+ *         deliveries keep going meanwhile, a failing subscriber only delays itself.
+ *      4) still failing after maxAttempts -> a line in dead-letter.log, then acked like a success.
+ *      5) a segment whose records are all acked is deleted together with its .acks file.
+ *
+ * Files (in the outbox directory):
+ *      segment-<n>.log   records: seq (long), subscriber id (UTF), video title (UTF)
+ *      segment-<n>.acks  seq (long) of every delivered / dead-lettered record
+ *      dead-letter.log   one text line per given up notification
+ *
+ * On startup every segment is read back and records without an ack are delivered again, so delivery is
+ * at-least-once: a crash between update() and writing the ack means that notification is sent twice.
+ *
+ * Subscribers are objects, files need names, so every subscriber is registered with a stable id first.
+ *
+ * KIM: an Error from update() (anything that is not an Exception) is not retried: the record is dead-lettered right
+ * away and the upload's future completes exceptionally with it once the other recipients are done. publish() after
+ * close() throws IllegalStateException.
+ * */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class NotificationOutbox implements AutoCloseable{
+    public static final long DEFAULT_SEGMENT_RECORDS = 100_000;
+
+    // One segment file + its acks file.
+    private final class Segment{
+        final long number;
+        final Path logFile;
+        final Path ackFile;
+        final AtomicInteger outstanding = new AtomicInteger();
+        DataOutputStream log;
+        FileOutputStream logFileStream;
+        DataOutputStream acks;
+        long records;
+        volatile boolean sealed;
+
+        Segment(long number){
+            this.number = number;
+            this.logFile = directory.resolve("segment-" + number + ".log");
+            this.ackFile = directory.resolve("segment-" + number + ".acks");
+        }
+
+        void openForAppend() throws IOException {
+            logFileStream = new FileOutputStream(logFile.toFile(), true);
+            log = new DataOutputStream(new BufferedOutputStream(logFileStream));
+            openAcks();
+        }
+
+        void openAcks() throws IOException {
+            acks = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(ackFile.toFile(), true)));
+            liveSegments.add(this);
+        }
+
+        synchronized void ack(long seq){
+            try {
+                acks.writeLong(seq);
+                acks.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not write ack to " + ackFile, e);
+            }
+            if(outstanding.decrementAndGet() == 0 && sealed){
+                delete();
+            }
+        }
+
+        synchronized void seal() throws IOException {
+            sealed = true;
+            if(log != null){
+                log.close();
+                log = null;
+            }
+            if(outstanding.get() == 0){
+                delete();
+            }
+        }
+
+        private void delete(){
+            liveSegments.remove(this);
+            try {
+                acks.close();
+                Files.deleteIfExists(logFile);
+                Files.deleteIfExists(ackFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not delete finished segment " + logFile, e);
+            }
+        }
+    }
+
+    // All notifications of one publish() call, completes when each one is delivered or dead-lettered.
+    private static final class Upload{
+        final AtomicInteger remaining;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Upload(int notifications){
+            remaining = new AtomicInteger(notifications);
+            if(notifications == 0){
+                done.complete(null);
+            }
+        }
+
+        void failed(Throwable e){
+            failure.compareAndSet(null, e);
+        }
+
+        void finished(){
+            if(remaining.decrementAndGet() == 0){
+                Throwable e = failure.get();
+                if(e == null){
+                    done.complete(null);
+                }
+                else{
+                    done.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private final class Delivery implements Runnable{
+        final long seq;
+        final Segment segment;
+        final String subscriberId;
+        final String videoTitle;
+        final Upload upload;
+        int attempt;
+
+        Delivery(long seq, Segment segment, String subscriberId, String videoTitle, Upload upload){
+            this.seq = seq;
+            this.segment = segment;
+            this.subscriberId = subscriberId;
+            this.videoTitle = videoTitle;
+            this.upload = upload;
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            try {
+                Subscriber subscriber = subscribers.get(subscriberId);
+                if(subscriber == null){
+                    throw new IllegalStateException("no subscriber registered as " + subscriberId);
+                }
+                subscriber.update(videoTitle);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            if(failure == null){
+                delivered.incrementAndGet();
+                finish();
+            }
+            else if(!(failure instanceof Exception) || ++attempt >= maxAttempts){
+                // an Error is not worth retrying
+                deadLetter(this, failure);
+                if(upload != null && !(failure instanceof Exception)){
+                    upload.failed(failure);
+                }
+                finish();
+            }
+            else{
+                retried.incrementAndGet();
+                workers.schedule(this, backoffMillis(attempt), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void finish(){
+            try {
+                segment.ack(seq);
+            } catch (RuntimeException e) {
+                // not acked, so it is delivered again on the next start, but this upload is not done cleanly
+                if(upload != null){
+                    upload.failed(e);
+                }
+            }
+            if(upload != null){
+                upload.finished();
+            }
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<Subscriber, String> idsBySubscriber = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long segmentRecords;
+    private final PrintWriter deadLetters;
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    // deliveries found on disk at startup, they are handed to the workers by start()
+    private final List<Delivery> recovered = new ArrayList<>();
+    private final Set<Segment> liveSegments = ConcurrentHashMap.newKeySet();
+    private Segment active;
+    private long nextSegmentNumber;
+    // guarded by this
+    private boolean closed;
+
+    public NotificationOutbox(Path directory, int workerThreads, int maxAttempts, long baseBackoffMillis,
+                              long maxBackoffMillis, long segmentRecords) throws IOException {
+        if(workerThreads < 1 || maxAttempts < 1 || baseBackoffMillis < 1 || segmentRecords < 1){
+            throw new IllegalArgumentException("workerThreads, maxAttempts, baseBackoffMillis and segmentRecords "
+                    + "must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = Math.max(baseBackoffMillis, maxBackoffMillis);
+        this.segmentRecords = segmentRecords;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ScheduledThreadPoolExecutor(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadLetters = new PrintWriter(Files.newBufferedWriter(directory.resolve("dead-letter.log"),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND), true);
+        recover();
+    }
+
+    // Subscribers must be registered (with the same ids on every start) before start() / publish().
+    public void register(String id, Subscriber subscriber){
+        if(subscribers.putIfAbsent(id, subscriber) != null){
+            throw new IllegalArgumentException("subscriber id " + id + " is already registered");
+        }
+        idsBySubscriber.put(subscriber, id);
+    }
+
+    // Starts delivering, beginning with the notifications that were still pending on disk.
+    public synchronized void start(){
+        for(Delivery delivery : recovered){
+            workers.execute(delivery);
+        }
+        recovered.clear();
+    }
+
+    public int recoveredCount(){
+        return recovered.size();
+    }
+
+    // Durably stores one notification per recipient, then queues them for delivery.
+    public CompletableFuture<Void> publish(Subscriber[] recipients, String videoTitle){
+        // resolve every id before writing, an unknown recipient must not leave half an upload in the segment
+        String[] ids = new String[recipients.length];
+        for(int i = 0; i < recipients.length; i++){
+            ids[i] = idsBySubscriber.get(recipients[i]);
+            if(ids[i] == null){
+                throw new IllegalStateException("subscriber is not registered with the outbox: " + recipients[i]);
+            }
+        }
+        Upload upload = new Upload(recipients.length);
+        List<Delivery> deliveries = new ArrayList<>(recipients.length);
+        synchronized (this){
+            if(closed){
+                throw new IllegalStateException("NotificationOutbox is closed");
+            }
+            try {
+                for(String id : ids){
+                    if(active.records == segmentRecords){
+                        roll();
+                    }
+                    long seq = nextSeq.getAndIncrement();
+                    active.log.writeLong(seq);
+                    active.log.writeUTF(id);
+                    active.log.writeUTF(videoTitle);
+                    active.records++;
+                    active.outstanding.incrementAndGet();
+                    deliveries.add(new Delivery(seq, active, id, videoTitle, upload));
+                }
+                active.log.flush();
+                // one fsync for the whole upload (group commit)
+                active.logFileStream.getFD().sync();
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not write notifications to the outbox", e);
+            }
+            // still under the lock, so close() can not stop the workers in between
+            for(Delivery delivery : deliveries){
+                workers.execute(delivery);
+            }
+        }
+        return upload.done;
+    }
+
+    public long deliveredCount(){
+        return delivered.get();
+    }
+
+    public long retriedCount(){
+        return retried.get();
+    }
+
+    public long deadLetteredCount(){
+        return deadLettered.get();
+    }
+
+    private long backoffMillis(int attempt){
+        long delay = baseBackoffMillis << Math.min(attempt - 1, 30);
+        delay = Math.min(delay, maxBackoffMillis);
+        // jitter: anywhere in [delay / 2, delay], so retries of one failed upload do not all fire together
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void deadLetter(Delivery delivery, Throwable cause){
+        deadLettered.incrementAndGet();
+        synchronized (deadLetters){
+            deadLetters.println(delivery.seq + "\t" + delivery.subscriberId + "\t" + delivery.videoTitle + "\t"
+                    + delivery.attempt + " attempts\t" + cause);
+        }
+    }
+
+    // caller holds the lock
+    private void roll() throws IOException {
+        Segment previous = active;
+        previous.log.flush();
+        previous.logFileStream.getFD().sync();
+        active = new Segment(nextSegmentNumber++);
+        active.openForAppend();
+        previous.seal();
+    }
+
+    private void recover() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")){
+            for(Path file : files){
+                String name = file.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length())));
+            }
+        }
+        numbers.sort(null);
+        for(long number : numbers){
+            Segment segment = new Segment(number);
+            Set<Long> acked = readAcks(segment.ackFile);
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(segment.logFile)))){
+                while(true){
+                    long seq;
+                    String id;
+                    String title;
+                    try {
+                        seq = in.readLong();
+                        id = in.readUTF();
+                        title = in.readUTF();
+                    } catch (EOFException e) {
+                        // end of the segment, or a record torn by a crash before its fsync
+                        break;
+                    }
+                    nextSeq.set(Math.max(nextSeq.get(), seq + 1));
+                    if(!acked.contains(seq)){
+                        segment.outstanding.incrementAndGet();
+                        recovered.add(new Delivery(seq, segment, id, title, null));
+                    }
+                }
+            }
+            segment.openAcks();
+            segment.seal();
+            nextSegmentNumber = number + 1;
+        }
+        active = new Segment(nextSegmentNumber++);
+        active.openForAppend();
+    }
+
+    private static Set<Long> readAcks(Path ackFile) throws IOException {
+        Set<Long> acked = new HashSet<>();
+        if(!Files.exists(ackFile)){
+            return acked;
+        }
+        try(InputStream raw = Files.newInputStream(ackFile);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(raw))){
+            while(true){
+                try {
+                    acked.add(in.readLong());
+                } catch (EOFException e) {
+                    return acked;
+                }
+            }
+        }
+    }
+
+    // Stops the workers. Notifications not delivered yet stay in the segments and are retried on the next start.
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed){
+            return;
+        }
+        closed = true;
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(active.log != null){
+            active.log.flush();
+            active.logFileStream.getFD().sync();
+            active.log.close();
+            active.log = null;
+        }
+        for(Segment segment : liveSegments){
+            synchronized (segment){
+                segment.acks.close();
+            }
+        }
+        deadLetters.close();
+    }
+}
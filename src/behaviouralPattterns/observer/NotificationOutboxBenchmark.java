@@ -0,0 +1,102 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Benchmark: NotificationOutbox delivery throughput and recovery after a crash
+ * ===============================================================================================================
+ *
+ * Fake sink: 10K subscribers that only count, 5% of calls throw (so retries and backoff are part of the numbers).
+ *      1) delivery: 20 uploads to all 10K subscribers, time until every upload's future completes.
+ *      2) recovery: publish 20 more uploads and close right away (= crash in the middle of delivering), reopen the
+ *         directory and time reading the not yet acked notifications back + delivering them.
+ *
+ * KIM: plain main() harness (no JMH in this project), files go to a temp directory that is deleted at the end.
+ * */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class NotificationOutboxBenchmark {
+    private static final int SUBSCRIBERS = 10_000;
+    private static final int UPLOADS = 20;
+    private static final double FAILURE_RATE = 0.05;
+
+    private static final class FlakySubscriber implements Subscriber{
+        final LongAdder received;
+
+        FlakySubscriber(LongAdder received){
+            this.received = received;
+        }
+
+        @Override
+        public void update(String videoTitle) {
+            if(ThreadLocalRandom.current().nextDouble() < FAILURE_RATE){
+                throw new IllegalStateException("provider timeout");
+            }
+            received.increment();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("notification-outbox");
+        LongAdder received = new LongAdder();
+        Subscriber[] subscribers = new Subscriber[SUBSCRIBERS];
+        for(int i = 0; i < SUBSCRIBERS; i++){
+            subscribers[i] = new FlakySubscriber(received);
+        }
+        try {
+            try(NotificationOutbox outbox = open(directory, subscribers)){
+                outbox.start();
+                long begin = System.nanoTime();
+                CompletableFuture<?>[] uploads = new CompletableFuture<?>[UPLOADS];
+                for(int u = 0; u < UPLOADS; u++){
+                    uploads[u] = outbox.publish(subscribers, "video-" + u);
+                }
+                CompletableFuture.allOf(uploads).join();
+                long millis = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+                long notifications = (long) SUBSCRIBERS * UPLOADS;
+                System.out.printf("delivery: %d notifications in %d ms (%d/s), retries=%d, dead letters=%d%n",
+                        notifications, millis, notifications * 1000 / millis, outbox.retriedCount(),
+                        outbox.deadLetteredCount());
+
+                // crash with a backlog: everything is written durably, only part of it gets delivered
+                try(NotificationOutbox crashed = open(directory.resolve("backlog"), subscribers)){
+                    for(int u = 0; u < UPLOADS; u++){
+                        crashed.publish(subscribers, "backlog-" + u);
+                    }
+                }
+            }
+
+            long begin = System.nanoTime();
+            try(NotificationOutbox restarted = open(directory.resolve("backlog"), subscribers)){
+                long readMillis = (System.nanoTime() - begin) / 1_000_000;
+                int backlog = restarted.recoveredCount();
+                restarted.start();
+                while(restarted.deliveredCount() + restarted.deadLetteredCount() < backlog){
+                    Thread.onSpinWait();
+                }
+                System.out.printf("recovery: %d pending notifications read back in %d ms, delivered after %d ms%n",
+                        backlog, readMillis, (System.nanoTime() - begin) / 1_000_000);
+            }
+        } finally {
+            try(Stream<Path> files = Files.walk(directory)){
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static NotificationOutbox open(Path directory, Subscriber[] subscribers) throws IOException {
+        NotificationOutbox outbox = new NotificationOutbox(directory, 4, 5, 1, 50,
+                NotificationOutbox.DEFAULT_SEGMENT_RECORDS);
+        for(int i = 0; i < subscribers.length; i++){
+            outbox.register("subscriber-" + i, subscribers[i]);
+        }
+        return outbox;
+    }
+}
@@ -6,8 +6,13 @@ package behaviouralPattterns.observer;
  * ===============================================================================================================
  * */
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Observer Pattern: It defines one to many dependency b/w objects so that when one object changes state, all its
@@ -40,32 +45,50 @@ import java.util.List;
  * TODO: write pros-cons from LLD videos side by side in a tabular format
  */
 
-// Step 1: Interface to notify trigger notifications.
-interface Subscriber{
-    void update(String videoTitle);
-}
-
 // Step 2: Concrete observer
 class EmailSubscriber implements Subscriber{
     private String email;
+    // null = send right away, otherwise queue the email for a batched send (see NotificationBatcher.java)
+    private final NotificationBatcher batcher;
+
     public EmailSubscriber(String email) {
+        this(email, null);
+    }
+
+    public EmailSubscriber(String email, NotificationBatcher batcher) {
         this.email = email;
+        this.batcher = batcher;
     }
 
     @Override
     public void update(String videoTitle) {
+        if (batcher != null) {
+            batcher.add(EmailSubscriber.class, email, videoTitle);
+            return;
+        }
         System.out.println("Email sent to " + email + ": New video uploaded - " + videoTitle);
     }
 }
 
 class MobileSubscriber implements Subscriber{
     private String username;
+    private final NotificationBatcher batcher;
+
     public MobileSubscriber(String username) {
+        this(username, null);
+    }
+
+    public MobileSubscriber(String username, NotificationBatcher batcher) {
         this.username = username;
+        this.batcher = batcher;
     }
 
     @Override
     public void update(String videoTitle) {
+        if (batcher != null) {
+            batcher.add(MobileSubscriber.class, username, videoTitle);
+            return;
+        }
         System.out.println("In app notification for " + username + ": New video uploaded - " + videoTitle);
     }
 }
@@ -80,32 +103,162 @@ interface Channel{
 // Step 4: Concrete Subject
 class YoutubeChannel implements Channel{
     private String channelName;
-    private List<Subscriber> subscribers = new ArrayList<>();
+    // safe to subscribe/unsubscribe while an upload is notifying, see SubscriberRegistry.java
+    private final SubscriberRegistry subscribers = new SubscriberRegistry();
+    // subscribers that only want some videos (tags, categories, title prefixes), see TopicIndex.java
+    private final TopicIndex topicSubscribers = new TopicIndex();
+    // subscriber -> EVERY_UPLOAD or its filters. compute() on the subscriber's key serializes that subscriber's
+    // (un)subscribes, other subscribers are not held up, so the churn stays as lock-free as the two groups.
+    // A subscriber is in exactly one group except while it moves (to the other group or to new filters). Moves are
+    // counted, an upload reads the groups again if a move overlapped its read, so it never sees a subscriber in both
+    // groups or in none.
+    private static final SubscriptionFilter[] EVERY_UPLOAD = new SubscriptionFilter[0];
+    private final ConcurrentHashMap<Subscriber, SubscriptionFilter[]> memberships = new ConcurrentHashMap<>();
+    private final AtomicLong movesStarted = new AtomicLong();
+    private final AtomicLong movesFinished = new AtomicLong();
+    // all null = notify on the uploading thread, otherwise deliver in parallel shards (see FanOutEngine.java),
+    // through the durable outbox with retries (see NotificationOutbox.java) or as per subscriber digests after a
+    // short window (see NotificationCoalescer.java)
+    private final FanOutEngine fanOut;
+    private final NotificationOutbox outbox;
+    private final NotificationCoalescer coalescer;
 
     public YoutubeChannel(String channelName) {
+        this(channelName, null, null, null);
+    }
+
+    public YoutubeChannel(String channelName, FanOutEngine fanOut) {
+        this(channelName, fanOut, null, null);
+    }
+
+    public YoutubeChannel(String channelName, NotificationOutbox outbox) {
+        this(channelName, null, outbox, null);
+    }
+
+    public YoutubeChannel(String channelName, NotificationCoalescer coalescer) {
+        this(channelName, null, null, coalescer);
+    }
+
+    private YoutubeChannel(String channelName, FanOutEngine fanOut, NotificationOutbox outbox,
+                           NotificationCoalescer coalescer) {
         this.channelName = channelName;
+        this.fanOut = fanOut;
+        this.outbox = outbox;
+        this.coalescer = coalescer;
     }
 
+    // Subscribes to every upload (replaces any filtered subscription of this subscriber).
     @Override
     public void subscribe(Subscriber subscriber) {
-        subscribers.add(subscriber);
+        memberships.compute(subscriber, (s, current) -> {
+            if (current == null || current == EVERY_UPLOAD) {
+                subscribers.subscribe(s);
+                return EVERY_UPLOAD;
+            }
+            movesStarted.incrementAndGet();
+            try {
+                subscribers.subscribe(s);
+                topicSubscribers.unsubscribe(s);
+            } finally {
+                movesFinished.incrementAndGet();
+            }
+            return EVERY_UPLOAD;
+        });
+    }
+
+    // Subscribes only to uploads matching at least one filter (replaces any earlier subscription).
+    public void subscribe(Subscriber subscriber, SubscriptionFilter... filters) {
+        if (filters.length == 0) {
+            throw new IllegalArgumentException("a topic subscription needs at least one filter");
+        }
+        SubscriptionFilter[] copy = filters.clone();
+        memberships.compute(subscriber, (s, current) -> {
+            if (current == null) {
+                topicSubscribers.subscribe(s, copy);
+                return copy;
+            }
+            // replacing filters also counts as a move, TopicIndex drops the old filters before adding the new ones
+            movesStarted.incrementAndGet();
+            try {
+                topicSubscribers.subscribe(s, copy);
+                if (current == EVERY_UPLOAD) {
+                    subscribers.unsubscribe(s);
+                }
+            } finally {
+                movesFinished.incrementAndGet();
+            }
+            return copy;
+        });
     }
 
     @Override
     public void unsubscribe(Subscriber subscriber) {
-        subscribers.remove(subscriber);
+        memberships.computeIfPresent(subscriber, (s, current) -> {
+            if (current == EVERY_UPLOAD) {
+                subscribers.unsubscribe(s);
+            } else {
+                topicSubscribers.unsubscribe(s);
+            }
+            return null;
+        });
     }
 
+    // Without video details only the subscribers of every upload can be notified.
     @Override
     public void notifySubscribers(String videoTitle) {
-        for (Subscriber subscriber : subscribers) {
-            subscriber.update(this.channelName);
+        deliver(subscribers.snapshot(), videoTitle);
+    }
+
+    // completes once every subscriber got the notification
+    public CompletableFuture<Void> uploadVideo(String videoTitle) {
+        return uploadVideo(new VideoUpload(videoTitle, null, Collections.emptySet()));
+    }
+
+    public CompletableFuture<Void> uploadVideo(VideoUpload video) {
+        System.out.println(channelName + " Video uploaded - " + video.title);
+        Subscriber[] everyUpload;
+        Set<Subscriber> interested;
+        while (true) {
+            long moves = movesFinished.get();
+            if (movesStarted.get() != moves) {
+                // a subscriber is between the groups right now, moves are two map updates, so just spin
+                Thread.onSpinWait();
+                continue;
+            }
+            everyUpload = subscribers.snapshot();
+            interested = topicSubscribers.match(video);
+            if (movesStarted.get() == moves) {
+                break;
+            }
+        }
+        if (interested.isEmpty()) {
+            return deliver(everyUpload, video.title);
+        }
+        // the two groups never overlap, subscribe() moves a subscriber from one to the other
+        Subscriber[] recipients = Arrays.copyOf(everyUpload, everyUpload.length + interested.size());
+        int i = everyUpload.length;
+        for (Subscriber subscriber : interested) {
+            recipients[i++] = subscriber;
         }
+        return deliver(recipients, video.title);
     }
 
-    public void uploadVideo(String videoTitle) {
-        System.out.println(channelName + " Video uploaded - " + videoTitle);
-        notifySubscribers(videoTitle);
+    private CompletableFuture<Void> deliver(Subscriber[] recipients, String videoTitle) {
+        if (coalescer != null) {
+            // accepted into the digests, delivery happens when each subscriber's window closes
+            coalescer.offer(recipients, videoTitle);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (outbox != null) {
+            return outbox.publish(recipients, videoTitle);
+        }
+        if (fanOut != null) {
+            return fanOut.deliver(recipients, videoTitle);
+        }
+        for (Subscriber subscriber : recipients) {
+            subscriber.update(videoTitle);
+        }
+        return CompletableFuture.completedFuture(null);
     }
 }
 
@@ -115,6 +268,43 @@ public class Observer{
         tuf.subscribe(new EmailSubscriber("raj"));
         tuf.subscribe(new MobileSubscriber("rahul"));
         tuf.uploadVideo("observer-pattern");
+
+        // Big channel: deliver in parallel shards, the upload returns right away with a future
+        try (FanOutEngine fanOut = new FanOutEngine(Runtime.getRuntime().availableProcessors())) {
+            YoutubeChannel striver = new YoutubeChannel("striver", fanOut);
+            striver.subscribe(new EmailSubscriber("raj"));
+            striver.subscribe(new MobileSubscriber("rahul"));
+            striver.uploadVideo("fan-out").join();
+        }
+
+        // Topic subscriptions: only interested subscribers hear about the upload
+        YoutubeChannel lldChannel = new YoutubeChannel("lld-daily");
+        lldChannel.subscribe(new EmailSubscriber("raj"), SubscriptionFilter.tag("java"));
+        lldChannel.subscribe(new MobileSubscriber("rahul"), SubscriptionFilter.titlePrefix("LLD"),
+                SubscriptionFilter.category("system-design"));
+        lldChannel.subscribe(new MobileSubscriber("priya"), SubscriptionFilter.tag("python"));
+        lldChannel.uploadVideo(new VideoUpload("LLD: observer pattern", "design-patterns",
+                new HashSet<>(Arrays.asList("java", "oop")))); // raj + rahul, not priya
+
+        // Bulk upload: each subscriber gets one digest instead of three notifications
+        try (NotificationCoalescer coalescer = new NotificationCoalescer(200, 10)) {
+            YoutubeChannel bulkChannel = new YoutubeChannel("bulk-uploads", coalescer);
+            bulkChannel.subscribe(new EmailSubscriber("raj"));
+            bulkChannel.uploadVideo("part-1");
+            bulkChannel.uploadVideo("part-2");
+            bulkChannel.uploadVideo("part-3");
+        }
+
+        // Batched delivery: subscribers queue their notification, providers get one request per batch
+        try (NotificationBatcher batcher = new NotificationBatcher(100, 50)) {
+            batcher.register(EmailSubscriber.class, new EmailBatchSink())
+                    .register(MobileSubscriber.class, new PushBatchSink());
+            YoutubeChannel neetcode = new YoutubeChannel("neetcode");
+            neetcode.subscribe(new EmailSubscriber("raj", batcher));
+            neetcode.subscribe(new EmailSubscriber("aman", batcher));
+            neetcode.subscribe(new MobileSubscriber("rahul", batcher));
+            neetcode.uploadVideo("batching");
+        }
     }
 }
 
@@ -0,0 +1,12 @@
+package behaviouralPattterns.observer;
+
+class PushBatchSink implements BatchSink{
+    @Override
+    public void send(NotificationBatch batch) {
+        System.out.println("Push provider: sending " + batch.size + " in app notifications in one request");
+        for(int i = 0; i < batch.size; i++){
+            System.out.println("  In app notification for " + batch.recipients[i] + ": New video uploaded - "
+                    + batch.videoTitles[i]);
+        }
+    }
+}
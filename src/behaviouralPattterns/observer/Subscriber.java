@@ -0,0 +1,6 @@
+package behaviouralPattterns.observer;
+
+// Step 1: Interface to notify trigger notifications.
+interface Subscriber{
+    void update(String videoTitle);
+}
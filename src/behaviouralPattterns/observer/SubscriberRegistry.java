@@ -0,0 +1,88 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Subscriber registry: concurrent subscribe/unsubscribe + snapshot iteration for notify
+ * ===============================================================================================================
+ *
+ * Problem with List<Subscriber>: 1) subscribe/unsubscribe while notifySubscribers() is looping throws
+ * ConcurrentModificationException. 2) unsubscribe is remove(Object) = O(n), painful with millions of subscribers.
+ * 3) CopyOnWriteArrayList fixes 1) but makes every subscribe/unsubscribe copy the whole array = O(n) again.
+ *
+ * Idea: keep the "who is subscribed" set and the "array we loop over" separate.
+ *      - members: ConcurrentHashMap key set -> O(1) subscribe/unsubscribe, scales with many writer threads.
+ *      - snapshot: immutable Subscriber[] that notify loops over, nobody ever modifies it, so no CME and every
+ *        notification sees one consistent set of subscribers.
+ *      - every subscribe/unsubscribe bumps a version. snapshot() rebuilds the array only if the version moved.
+ * The rebuild is O(n), but it only happens when someone notifies, and notifying n subscribers is O(n) anyway, so
+ * subscribe/unsubscribe stay O(1) amortized no matter how much churn there is between uploads.
+ *
+ * Rebuilding is lock-free: whoever notices a stale snapshot builds a new one and CASes it in, a loser just uses the
+ * winner's (at least as new) snapshot.
+ *
+ * KIM: subscribing twice has no effect (it is a set), and subscribers are not notified in subscription order, the
+ * observer pattern never promised an order.
+ * */
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class SubscriberRegistry{
+    private static final Subscriber[] NONE = new Subscriber[0];
+
+    private static final class Snapshot{
+        final long version;
+        final Subscriber[] subscribers;
+
+        Snapshot(long version, Subscriber[] subscribers){
+            this.version = version;
+            this.subscribers = subscribers;
+        }
+    }
+
+    private final Set<Subscriber> members = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, NONE));
+
+    public boolean subscribe(Subscriber subscriber){
+        boolean added = members.add(subscriber);
+        if(added){
+            version.incrementAndGet();
+        }
+        return added;
+    }
+
+    public boolean unsubscribe(Subscriber subscriber){
+        boolean removed = members.remove(subscriber);
+        if(removed){
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    public int size(){
+        return members.size();
+    }
+
+    // The current subscribers. The returned array is shared, callers must not modify it.
+    public Subscriber[] snapshot(){
+        Snapshot current = snapshot.get();
+        long latest = version.get();
+        if(current.version == latest){
+            return current.subscribers;
+        }
+        // read the version before copying, so the new snapshot contains at least every change up to it
+        Snapshot rebuilt = new Snapshot(latest, members.toArray(NONE));
+        while(true){
+            if(snapshot.compareAndSet(current, rebuilt)){
+                return rebuilt.subscribers;
+            }
+            current = snapshot.get();
+            if(current.version >= latest){
+                return current.subscribers;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Benchmark: SubscriberRegistry vs List<Subscriber>
+ * ===============================================================================================================
+ *
+ * 1) Unsubscribe cost: 1M subscribers, remove 10K of them.
+ *      ArrayList (what YoutubeChannel used)  -> remove(Object) scans, O(n) per call
+ *      SubscriberRegistry                    -> O(1)
+ * 2) Churn: 4 threads subscribe/unsubscribe for 2 seconds while 1 thread keeps notifying (looping the subscribers).
+ *    The plain ArrayList can not even run this (ConcurrentModificationException), so the baseline is a
+ *    Collections.synchronizedList where notify holds the list lock while looping.
+ *
+ * KIM: plain main() harness (no JMH in this project), numbers are for comparing the two, not absolute.
+ * */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SubscriberRegistryBenchmark {
+    private static final int SUBSCRIBERS = 1_000_000;
+    private static final int REMOVALS = 10_000;
+    private static final int CHURN_THREADS = 4;
+    private static final long CHURN_MILLIS = 2_000;
+
+    private static final class CountingSubscriber implements Subscriber{
+        long updates;
+
+        @Override
+        public void update(String videoTitle) {
+            updates++;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Subscriber[] population = new Subscriber[SUBSCRIBERS];
+        for(int i = 0; i < SUBSCRIBERS; i++){
+            population[i] = new CountingSubscriber();
+        }
+
+        List<Subscriber> list = new ArrayList<>();
+        SubscriberRegistry registry = new SubscriberRegistry();
+        for(Subscriber subscriber : population){
+            list.add(subscriber);
+            registry.subscribe(subscriber);
+        }
+        long begin = System.nanoTime();
+        for(int i = 0; i < REMOVALS; i++){
+            list.remove(population[i * 97]);
+        }
+        long listNanos = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for(int i = 0; i < REMOVALS; i++){
+            registry.unsubscribe(population[i * 97]);
+        }
+        long registryNanos = System.nanoTime() - begin;
+        System.out.printf("unsubscribe from %d: list=%.1f us/op  registry=%.3f us/op%n", SUBSCRIBERS,
+                listNanos / 1e3 / REMOVALS, registryNanos / 1e3 / REMOVALS);
+
+        List<Subscriber> synchronizedList = Collections.synchronizedList(new ArrayList<>());
+        Collections.addAll(synchronizedList, population);
+        churn("synchronized list", population, synchronizedList::add, synchronizedList::remove, () -> {
+            synchronized (synchronizedList){
+                for(Subscriber subscriber : synchronizedList){
+                    subscriber.update("video");
+                }
+            }
+        });
+
+        SubscriberRegistry churned = new SubscriberRegistry();
+        for(Subscriber subscriber : population){
+            churned.subscribe(subscriber);
+        }
+        churn("registry", population, churned::subscribe, churned::unsubscribe, () -> {
+            for(Subscriber subscriber : churned.snapshot()){
+                subscriber.update("video");
+            }
+        });
+    }
+
+    private interface Change{
+        Object apply(Subscriber subscriber);
+    }
+
+    private static void churn(String label, Subscriber[] population, Change subscribe, Change unsubscribe,
+                              Runnable notifyAll) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder changes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < CHURN_THREADS; t++){
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while(running.get()){
+                    Subscriber subscriber = population[random.nextInt(population.length)];
+                    unsubscribe.apply(subscriber);
+                    subscribe.apply(subscriber);
+                    changes.add(2);
+                }
+            }));
+        }
+        long[] notifications = new long[1];
+        threads.add(new Thread(() -> {
+            while(running.get()){
+                notifyAll.run();
+                notifications[0]++;
+            }
+        }));
+        threads.forEach(Thread::start);
+        Thread.sleep(CHURN_MILLIS);
+        running.set(false);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        System.out.printf("%-18s churn=%,12d changes/s  full notifications=%d%n", label,
+                changes.sum() * 1000 / CHURN_MILLIS, notifications[0]);
+    }
+}
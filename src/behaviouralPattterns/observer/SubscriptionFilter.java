@@ -0,0 +1,28 @@
+package behaviouralPattterns.observer;
+
+class SubscriptionFilter{
+    enum Kind{ TAG, CATEGORY, TITLE_PREFIX }
+
+    final Kind kind;
+    final String value;
+
+    private SubscriptionFilter(Kind kind, String value){
+        if(value == null || value.isEmpty()){
+            throw new IllegalArgumentException(kind + " filter needs a value");
+        }
+        this.kind = kind;
+        this.value = value;
+    }
+
+    public static SubscriptionFilter tag(String tag){
+        return new SubscriptionFilter(Kind.TAG, tag);
+    }
+
+    public static SubscriptionFilter category(String category){
+        return new SubscriptionFilter(Kind.CATEGORY, category);
+    }
+
+    public static SubscriptionFilter titlePrefix(String prefix){
+        return new SubscriptionFilter(Kind.TITLE_PREFIX, prefix);
+    }
+}
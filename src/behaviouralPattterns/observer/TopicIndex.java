@@ -0,0 +1,148 @@
+package behaviouralPattterns.observer;
+
+/*
+ * ===============================================================================================================\
+ * Topic subscriptions: only notify subscribers interested in the uploaded video
+ * ===============================================================================================================
+ *
+ * With one flat subscriber list, every upload goes to everyone. Here a subscriber can subscribe with filters:
+ *      SubscriptionFilter.tag("java"), .category("system-design"), .titlePrefix("LLD")
+ * and only hears about videos matching at least one of them.
+ *
+ * Checking every filter of every subscriber per upload would again be a full scan. TopicIndex is an inverted index
+ * (like the index at the back of a book), it goes from the video's attributes to the subscribers:
+ *      tag      -> subscribers          (one map lookup per tag of the video)
+ *      category -> subscribers          (one map lookup)
+ *      prefix trie: one node per character, each node holds the subscribers whose prefix ends there. Walking the
+ *      video title through the trie visits exactly the prefixes of the title.
+ * So resolving an upload costs (number of tags + title length + number of matches), the number of subscribers that
+ * do NOT match never shows up.
+ *
+ * Matches are de-duplicated, a subscriber matching on two filters gets one notification.
+ *
+ * KIM: no lock. (Un)subscribes of one subscriber are serialized by compute() on its filtersOf entry, and every
+ * tag/category set is added to and dropped (when it becomes empty) inside compute() on its key, so a subscriber can
+ * not be added to a set that another thread is just removing from the map.
+ * */
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class TopicIndex{
+    private static final class PrefixNode{
+        final Map<Character, PrefixNode> children = new ConcurrentHashMap<>();
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    }
+
+    private final Map<String, Set<Subscriber>> byTag = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byCategory = new ConcurrentHashMap<>();
+    private final PrefixNode prefixRoot = new PrefixNode();
+    // reverse index, so unsubscribe knows which entries to remove
+    private final Map<Subscriber, SubscriptionFilter[]> filtersOf = new ConcurrentHashMap<>();
+
+    public void subscribe(Subscriber subscriber, SubscriptionFilter... filters){
+        if(filters.length == 0){
+            throw new IllegalArgumentException("a topic subscription needs at least one filter");
+        }
+        SubscriptionFilter[] copy = filters.clone();
+        filtersOf.compute(subscriber, (s, old) -> {
+            if(old != null){
+                removeAll(s, old);
+            }
+            for(SubscriptionFilter filter : copy){
+                switch (filter.kind){
+                    case TAG:
+                        addTo(byTag, filter.value, s);
+                        break;
+                    case CATEGORY:
+                        addTo(byCategory, filter.value, s);
+                        break;
+                    case TITLE_PREFIX:
+                        PrefixNode node = prefixRoot;
+                        for(int i = 0; i < filter.value.length(); i++){
+                            node = node.children.computeIfAbsent(filter.value.charAt(i), c -> new PrefixNode());
+                        }
+                        node.subscribers.add(s);
+                        break;
+                }
+            }
+            return copy;
+        });
+    }
+
+    public boolean unsubscribe(Subscriber subscriber){
+        boolean[] removed = new boolean[1];
+        filtersOf.computeIfPresent(subscriber, (s, filters) -> {
+            removeAll(s, filters);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private void removeAll(Subscriber subscriber, SubscriptionFilter[] filters){
+        for(SubscriptionFilter filter : filters){
+            switch (filter.kind){
+                case TAG:
+                    removeFrom(byTag, filter.value, subscriber);
+                    break;
+                case CATEGORY:
+                    removeFrom(byCategory, filter.value, subscriber);
+                    break;
+                case TITLE_PREFIX:
+                    PrefixNode node = prefixRoot;
+                    for(int i = 0; i < filter.value.length() && node != null; i++){
+                        node = node.children.get(filter.value.charAt(i));
+                    }
+                    if(node != null){
+                        node.subscribers.remove(subscriber);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static void addTo(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber){
+        index.compute(key, (k, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.<Subscriber>newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+    }
+
+    private static void removeFrom(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber){
+        index.computeIfPresent(key, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // Every subscriber with at least one filter matching the video.
+    public Set<Subscriber> match(VideoUpload video){
+        Set<Subscriber> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(String tag : video.tags){
+            Set<Subscriber> subscribers = byTag.get(tag);
+            if(subscribers != null){
+                matches.addAll(subscribers);
+            }
+        }
+        if(video.category != null){
+            Set<Subscriber> subscribers = byCategory.get(video.category);
+            if(subscribers != null){
+                matches.addAll(subscribers);
+            }
+        }
+        PrefixNode node = prefixRoot;
+        for(int i = 0; i < video.title.length(); i++){
+            node = node.children.get(video.title.charAt(i));
+            if(node == null){
+                break;
+            }
+            matches.addAll(node.subscribers);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,16 @@
+package behaviouralPattterns.observer;
+
+import java.util.Set;
+
+// The video being uploaded, with the attributes filters can match on.
+class VideoUpload{
+    final String title;
+    final String category;
+    final Set<String> tags;
+
+    VideoUpload(String title, String category, Set<String> tags){
+        this.title = title;
+        this.category = category;
+        this.tags = tags;
+    }
+}
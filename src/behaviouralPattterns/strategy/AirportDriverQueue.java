@@ -0,0 +1,171 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Airport driver queue: lock-free FIFO of drivers waiting in one airport's lot
+ * ==================================================================================================================
+ *
+ * Drivers join the back of the queue when they enter the lot, the driver at the front gets the next airport rider, and
+ * a driver can leave the lot from anywhere in the line. Many matching threads poll the same queue at once.
+ *
+ * It is a Michael-Scott linked queue (head is a dummy node, CAS on head to take, CAS on tail.next to append), so
+ * offer and poll never block. Leaving the line is a logical removal:
+ *      - every node has a state WAITING -> TAKEN, whoever flips it (a poll or a remove) owns that driver
+ *      - nodeOf[driverId] points to the driver's node, so remove(driverId) finds it in O(1) and just flips the state
+ *      - poll moves head past a node and then tries to flip it, a node that was already TAKEN (the driver left) is
+ *        skipped and the poll moves on to the next one
+ *
+ * A driver is in the queue at most once (offer returns false otherwise), and after leaving it can join again at the
+ * back with a new node, an old TAKEN node of that driver is never handed out.
+ *
+ * KIM: nodes of drivers who left stay linked until a poll walks past them, so remove is O(1) but the memory comes
+ * back only as the line moves.
+ * */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class AirportDriverQueue{
+    public static final int NO_DRIVER = DriverIndex.NO_DRIVER;
+
+    // next and state are changed through VarHandles, so a node is one small object and not three
+    private static final class Node{
+        private static final int WAITING = 0;
+        private static final int TAKEN = 1;
+
+        final int driverId;
+        volatile Node next;
+        volatile int state;
+
+        Node(int driverId){
+            this.driverId = driverId;
+        }
+
+        boolean take(){
+            return state == WAITING && STATE.compareAndSet(this, WAITING, TAKEN);
+        }
+
+        boolean taken(){
+            return state == TAKEN;
+        }
+
+        boolean casNext(Node expected, Node value){
+            return NEXT.compareAndSet(this, expected, value);
+        }
+    }
+
+    private static final VarHandle NEXT;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+            STATE = lookup.findVarHandle(Node.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String airport;
+    private final AtomicReference<Node> head;
+    private final AtomicReference<Node> tail;
+    private final AtomicReferenceArray<Node> nodeOf;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public AirportDriverQueue(String airport, int maxDrivers){
+        if(maxDrivers < 1){
+            throw new IllegalArgumentException("maxDrivers must be positive");
+        }
+        this.airport = airport;
+        Node dummy = new Node(NO_DRIVER);
+        dummy.state = Node.TAKEN;
+        this.head = new AtomicReference<>(dummy);
+        this.tail = new AtomicReference<>(dummy);
+        this.nodeOf = new AtomicReferenceArray<>(maxDrivers);
+    }
+
+    public String airport(){
+        return airport;
+    }
+
+    // Driver enters the lot and joins the back of the line. Returns false if it is already waiting.
+    public boolean offer(int driverId){
+        Node node = new Node(driverId);
+        while(true){
+            Node current = nodeOf.get(driverId);
+            if(current == null){
+                if(nodeOf.compareAndSet(driverId, null, node)){
+                    break;
+                }
+            } else if(current.taken()){
+                // the driver just left / got a ride and that thread has not cleared nodeOf yet, help it
+                nodeOf.compareAndSet(driverId, current, null);
+            } else {
+                return false;
+            }
+        }
+        waiting.incrementAndGet();
+        append(node);
+        return true;
+    }
+
+    private void append(Node node){
+        while(true){
+            Node last = tail.get();
+            Node next = last.next;
+            if(next != null){
+                // tail is behind, help move it
+                tail.compareAndSet(last, next);
+            } else if(last.casNext(null, node)){
+                tail.compareAndSet(last, node);
+                return;
+            }
+        }
+    }
+
+    // Takes the driver at the front of the line, or NO_DRIVER if the lot is empty.
+    public int poll(){
+        while(true){
+            Node first = head.get();
+            Node next = first.next;
+            if(next == null){
+                return NO_DRIVER;
+            }
+            Node last = tail.get();
+            if(first == last){
+                tail.compareAndSet(last, next);
+            }
+            // next becomes the new dummy, only the thread that moved head looks at it
+            if(head.compareAndSet(first, next) && next.take()){
+                waiting.decrementAndGet();
+                nodeOf.compareAndSet(next.driverId, next, null);
+                return next.driverId;
+            }
+        }
+    }
+
+    // Driver leaves the lot without a rider. Returns false if it was not waiting.
+    public boolean remove(int driverId){
+        Node node = nodeOf.get(driverId);
+        if(node == null || !node.take()){
+            return false;
+        }
+        waiting.decrementAndGet();
+        nodeOf.compareAndSet(driverId, node, null);
+        return true;
+    }
+
+    public boolean contains(int driverId){
+        Node node = nodeOf.get(driverId);
+        return node != null && !node.taken();
+    }
+
+    // Drivers currently waiting, exact when nothing is changing the queue at the same time.
+    public int size(){
+        return Math.max(0, waiting.get());
+    }
+}
@@ -0,0 +1,125 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Benchmark: airport matching under contention, synchronized LinkedHashSet vs AirportDriverQueue
+ * ==================================================================================================================
+ *
+ * One airport lot with 10K waiting drivers. Every thread calls RideMatchingService.matchRider(airport location) in a
+ * loop and puts the driver it got back at the end of the line (drop-off, drive back to the airport), and every 8th
+ * round it also takes a random driver out of the lot and lets it rejoin (driver leaves and comes back). Run with 1, 4
+ * and 16 threads.
+ *
+ * The baseline is the obvious locked version: a LinkedHashSet (FIFO iteration + O(1) remove) behind one monitor.
+ *
+ * KIM: plain main() harness with a warm-up round (no JMH in this project), compare the two columns, not absolute
+ * numbers.
+ * */
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+public class AirportQueueBenchmark {
+    private static final int DRIVERS = 10_000;
+    private static final int OPERATIONS_PER_THREAD = 500_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    // the locked baseline, offer/remove are exposed so the benchmark loop is the same for both
+    private static final class LockedAirportStrategy implements MatchingStrategy {
+        private final LinkedHashSet<Integer> lot = new LinkedHashSet<>();
+
+        @Override
+        public synchronized int match(long location) {
+            Iterator<Integer> first = lot.iterator();
+            if (!first.hasNext()) {
+                return NO_DRIVER;
+            }
+            int driver = first.next();
+            first.remove();
+            return driver;
+        }
+
+        synchronized boolean offer(int driverId) {
+            return lot.add(driverId);
+        }
+
+        synchronized boolean remove(int driverId) {
+            return lot.remove(driverId);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int threads : THREAD_COUNTS){
+            // warm-up
+            runLocked(threads);
+            runLockFree(threads);
+
+            long lockedNanos = runLocked(threads);
+            long lockFreeNanos = runLockFree(threads);
+            System.out.printf("threads=%2d  locked=%8.1f ns/op  lock-free=%8.1f ns/op%n", threads,
+                    perOperation(lockedNanos, threads), perOperation(lockFreeNanos, threads));
+        }
+    }
+
+    private static double perOperation(long nanos, int threads){
+        return (double) nanos / ((long) OPERATIONS_PER_THREAD * threads);
+    }
+
+    private static long runLocked(int threads) throws InterruptedException {
+        LockedAirportStrategy strategy = new LockedAirportStrategy();
+        for(int driver = 0; driver < DRIVERS; driver++){
+            strategy.offer(driver);
+        }
+        return run(new RideMatchingService(strategy), threads, strategy::offer, strategy::remove);
+    }
+
+    private static long runLockFree(int threads) throws InterruptedException {
+        AirportDriverQueue lot = new AirportDriverQueue("Airport", DRIVERS);
+        for(int driver = 0; driver < DRIVERS; driver++){
+            lot.offer(driver);
+        }
+        long nanos = run(new RideMatchingService(new AirportQueueStrategy(lot)), threads, lot::offer, lot::remove);
+        if(lot.size() != DRIVERS){
+            throw new IllegalStateException("lost drivers: " + lot.size() + " of " + DRIVERS + " waiting");
+        }
+        return nanos;
+    }
+
+    private static long run(RideMatchingService service, int threads, IntPredicate offer, IntPredicate remove)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int t = 0; t < threads; t++){
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long airport = PlaceDirectory.intern("Airport");
+                for(int i = 0; i < OPERATIONS_PER_THREAD; i++){
+                    int driver = service.matchRider(airport);
+                    if(driver != MatchingStrategy.NO_DRIVER){
+                        offer.test(driver);
+                    }
+                    if((i & 7) == 0){
+                        int leaving = random.nextInt(DRIVERS);
+                        if(remove.test(leaving)){
+                            offer.test(leaving);
+                        }
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,45 @@
+package behaviouralPattterns.strategy;
+
+class AirportQueueStrategy implements MatchingStrategy {
+    // pickups within this distance of an airport are airport pickups
+    public static final double AIRPORT_RADIUS_KM = 3.0;
+
+    // one FIFO lot per airport, see AirportDriverQueue.java. A handful of airports, so a plain array scan.
+    private final AirportDriverQueue[] queues;
+    private final double[] lats;
+    private final double[] lons;
+
+    public AirportQueueStrategy(AirportDriverQueue... airportQueues) {
+        this.queues = airportQueues.clone();
+        this.lats = new double[queues.length];
+        this.lons = new double[queues.length];
+        for (int i = 0; i < queues.length; i++) {
+            long airport = PlaceDirectory.intern(queues[i].airport());
+            lats[i] = Location.lat(airport);
+            lons[i] = Location.lon(airport);
+        }
+    }
+
+    // true if the location is at an airport this strategy has a driver queue for
+    public boolean serves(long location) {
+        return queueOf(location) != null;
+    }
+
+    private AirportDriverQueue queueOf(long location) {
+        double lat = Location.lat(location);
+        double lon = Location.lon(location);
+        for (int i = 0; i < queues.length; i++) {
+            if (DriverIndex.distanceKm(lat, lon, lats[i], lons[i]) <= AIRPORT_RADIUS_KM) {
+                return queues[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int match(long location) {
+        // Match first in line driver for airport pickup, nobody to match away from the airports
+        AirportDriverQueue queue = queueOf(location);
+        return queue == null ? NO_DRIVER : queue.poll();
+    }
+}
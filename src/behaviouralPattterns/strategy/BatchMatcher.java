@@ -0,0 +1,246 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Batch matcher: assigns a whole batch of riders to drivers at once
+ * ==================================================================================================================
+ *
+ * Matching riders one by one is greedy in arrival order: the first rider takes the closest driver even when that
+ * driver was the only one close to the second rider, who then gets one far away. When many requests arrive at the
+ * same time in the same area it is cheaper in total pickup distance to decide them together.
+ *
+ *      1) group the riders by DriverIndex grid cell, riders of one cell compete for the same drivers
+ *      2) every group is solved on its own ForkJoinPool task, so different cells are matched in parallel:
+ *              - candidates = the ~3 * riders drivers nearest to the middle of the group, one DriverIndex search
+ *                for the whole group instead of one per rider
+ *              - cost[rider][candidate] = pickup distance
+ *              - small groups: Hungarian algorithm, the minimum total distance assignment
+ *              - big groups: greedy over all (rider, candidate) pairs, shortest pickup first
+ *      3) the chosen drivers are claimed with DriverIndex.remove. A driver can be a candidate of two neighbouring
+ *         cells, the group that loses that race (and a rider without a candidate) falls back to claimNearest.
+ *
+ * KIM: Hungarian is O(riders^2 * candidates), HUNGARIAN_MAX_RIDERS keeps that small, bigger groups use the greedy
+ * O(pairs log pairs) pass.
+ * */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+class BatchMatcher{
+    public static final int NO_DRIVER = DriverIndex.NO_DRIVER;
+    static final int HUNGARIAN_MAX_RIDERS = 32;
+    /*
+     * drivers looked at per group = CANDIDATES_PER_RIDER * riders + EXTRA_CANDIDATES. The search starts from the middle
+     * of the group, so riders at the edge of the cell need some slack to still see the drivers closest to them.
+     */
+    private static final int CANDIDATES_PER_RIDER = 3;
+    private static final int EXTRA_CANDIDATES = 4;
+    private static final double NOT_A_CANDIDATE = 1e9;
+    private static final int RIDERS_PER_TASK = 64;
+
+    private final DriverIndex drivers;
+    private final ForkJoinPool pool;
+
+    public BatchMatcher(DriverIndex drivers, ForkJoinPool pool){
+        this.drivers = drivers;
+        this.pool = pool;
+    }
+
+    /*
+     * Matches riders 0..count-1 at (lats[i], lons[i]). driverIds[i] gets the driver of rider i (or NO_DRIVER) and
+     * distancesKm[i] its pickup distance. Returns how many riders got a driver.
+     */
+    public int match(double[] lats, double[] lons, int count, int[] driverIds, double[] distancesKm){
+        int[] cellSizes = new int[count];
+        int[] cellOfRider = new int[count];
+        Map<Long, Integer> cellNumbers = new HashMap<>();
+        for(int rider = 0; rider < count; rider++){
+            long key = drivers.cellOf(lats[rider], lons[rider]);
+            Integer number = cellNumbers.get(key);
+            if(number == null){
+                number = cellNumbers.size();
+                cellNumbers.put(key, number);
+            }
+            cellOfRider[rider] = number;
+            cellSizes[number]++;
+        }
+        int[][] groups = new int[cellNumbers.size()][];
+        for(int g = 0; g < groups.length; g++){
+            groups[g] = new int[cellSizes[g]];
+        }
+        int[] filled = new int[groups.length];
+        for(int rider = 0; rider < count; rider++){
+            int g = cellOfRider[rider];
+            groups[g][filled[g]++] = rider;
+        }
+
+        // one task per run of groups with at least RIDERS_PER_TASK riders, a task per lone rider costs more than it
+        // saves
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        int from = 0;
+        int riders = 0;
+        for(int g = 0; g < groups.length; g++){
+            riders += groups[g].length;
+            if(riders >= RIDERS_PER_TASK || g == groups.length - 1){
+                int first = from;
+                int last = g;
+                tasks.add(pool.submit(() -> {
+                    for(int i = first; i <= last; i++){
+                        matchGroup(groups[i], lats, lons, driverIds, distancesKm);
+                    }
+                }));
+                from = g + 1;
+                riders = 0;
+            }
+        }
+        for(ForkJoinTask<?> task : tasks){
+            task.join();
+        }
+        int matched = 0;
+        for(int rider = 0; rider < count; rider++){
+            if(driverIds[rider] != NO_DRIVER){
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private void matchGroup(int[] group, double[] lats, double[] lons, int[] driverIds, double[] distancesKm){
+        int n = group.length;
+        if(n == 1){
+            // nobody to compete with, same as one-by-one
+            claimNearest(group[0], lats, lons, driverIds, distancesKm);
+            return;
+        }
+        // one search around the middle of the group instead of one per rider, the riders share their cell anyway
+        double centerLat = 0;
+        double centerLon = 0;
+        for(int rider : group){
+            centerLat += lats[rider];
+            centerLon += lons[rider];
+        }
+        int k = CANDIDATES_PER_RIDER * n + EXTRA_CANDIDATES;
+        int[] candidates = new int[k];
+        double[] candidateLats = new double[k];
+        double[] candidateLons = new double[k];
+        int m = drivers.nearest(centerLat / n, centerLon / n, k, candidates, new double[k], candidateLats,
+                candidateLons);
+        // the matrix has at least n columns so every rider gets one, the padding ones are "no candidate"
+        double[][] cost = new double[n][Math.max(n, m)];
+        for(int r = 0; r < n; r++){
+            int rider = group[r];
+            Arrays.fill(cost[r], m, cost[r].length, NOT_A_CANDIDATE);
+            for(int c = 0; c < m; c++){
+                cost[r][c] = DriverIndex.distanceKm(lats[rider], lons[rider], candidateLats[c], candidateLons[c]);
+            }
+        }
+        int columns = cost[0].length;
+        int[] assigned = n <= HUNGARIAN_MAX_RIDERS ? hungarian(cost, n, columns) : greedy(cost, n, columns);
+        for(int r = 0; r < n; r++){
+            int rider = group[r];
+            int column = assigned[r];
+            if(column >= 0 && column < m && drivers.remove(candidates[column])){
+                driverIds[rider] = candidates[column];
+                distancesKm[rider] = cost[r][column];
+                continue;
+            }
+            // no candidate left for this rider, or a neighbouring cell claimed it first
+            claimNearest(rider, lats, lons, driverIds, distancesKm);
+        }
+    }
+
+    private void claimNearest(int rider, double[] lats, double[] lons, int[] driverIds, double[] distancesKm){
+        double[] distance = new double[1];
+        driverIds[rider] = drivers.claimNearest(lats[rider], lons[rider], distance);
+        distancesKm[rider] = driverIds[rider] == NO_DRIVER ? 0 : distance[0];
+    }
+
+    // Minimum total cost assignment of n rows to m >= n columns (Hungarian algorithm with potentials), row -> column.
+    static int[] hungarian(double[][] cost, int n, int m){
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for(int row = 1; row <= n; row++){
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int currentRow = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                for(int j = 1; j <= m; j++){
+                    if(!used[j]){
+                        double reduced = cost[currentRow - 1][j - 1] - u[currentRow] - v[j];
+                        if(reduced < minv[j]){
+                            minv[j] = reduced;
+                            way[j] = column;
+                        }
+                        if(minv[j] < delta){
+                            delta = minv[j];
+                            nextColumn = j;
+                        }
+                    }
+                }
+                for(int j = 0; j <= m; j++){
+                    if(used[j]){
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while(rowOfColumn[column] != 0);
+            // flip the augmenting path
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while(column != 0);
+        }
+        int[] columnOfRow = new int[n];
+        Arrays.fill(columnOfRow, -1);
+        for(int j = 1; j <= m; j++){
+            if(rowOfColumn[j] != 0){
+                columnOfRow[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+
+    // Shortest (row, column) pair first, skipping rows and columns that are already taken, row -> column or -1.
+    static int[] greedy(double[][] cost, int n, int m){
+        List<long[]> pairs = new ArrayList<>();
+        for(int r = 0; r < n; r++){
+            for(int c = 0; c < m; c++){
+                if(cost[r][c] < NOT_A_CANDIDATE){
+                    // distances are non-negative, so their raw bits sort like the values
+                    pairs.add(new long[]{Double.doubleToRawLongBits(cost[r][c]), r, c});
+                }
+            }
+        }
+        pairs.sort((a, b) -> Long.compare(a[0], b[0]));
+        int[] columnOfRow = new int[n];
+        Arrays.fill(columnOfRow, -1);
+        boolean[] columnTaken = new boolean[m];
+        for(long[] pair : pairs){
+            int r = (int) pair[1];
+            int c = (int) pair[2];
+            if(columnOfRow[r] < 0 && !columnTaken[c]){
+                columnOfRow[r] = c;
+                columnTaken[c] = true;
+            }
+        }
+        return columnOfRow;
+    }
+}
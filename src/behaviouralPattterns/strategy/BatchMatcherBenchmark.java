@@ -0,0 +1,109 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Benchmark: one-by-one nearest driver vs BatchMatcher
+ * ==================================================================================================================
+ *
+ * 20K drivers spread over the city, batches of 500 riders that mostly come from a few busy spots (stations, malls).
+ * After every batch the matched drivers drop their riders off and become available again where riders usually are
+ * (same distribution as the riders), so the busy spots do not run dry. Both runs use the same random seed, so they
+ * see the same riders.
+ *
+ *      one-by-one: DriverIndex.claimNearest per rider in arrival order (what NearestDriverStrategy.match does)
+ *      batch:      BatchMatcher.match per batch
+ *
+ * Reported: riders matched per second and the average pickup distance.
+ *
+ * KIM: plain main() harness with a warm-up round (no JMH in this project).
+ * */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchMatcherBenchmark {
+    private static final int DRIVERS = 20_000;
+    private static final int BATCHES = 200;
+    private static final int BATCH_SIZE = 500;
+    private static final double MIN_LAT = 12.80;
+    private static final double MIN_LON = 77.40;
+    private static final double SPAN = 0.40;
+    private static final double[][] HOT_SPOTS = {
+            {12.9352, 77.6245}, {12.9767, 77.5713}, {12.9141, 77.6411}, {13.0280, 77.5400}, {12.9780, 77.6400}};
+
+    public static void main(String[] args) {
+        for(int round = 0; round < 2; round++){
+            double[] oneByOne = run(false);
+            double[] batch = run(true);
+            if(round == 1){
+                System.out.printf("one-by-one: %8.0f riders/s  avg pickup %.3f km%n", oneByOne[0], oneByOne[1]);
+                System.out.printf("batch:      %8.0f riders/s  avg pickup %.3f km%n", batch[0], batch[1]);
+            }
+        }
+    }
+
+    // {riders per second, average pickup km}
+    private static double[] run(boolean batched){
+        Random random = new Random(42);
+        DriverIndex index = new DriverIndex(DRIVERS);
+        for(int driver = 0; driver < DRIVERS; driver++){
+            index.update(driver, MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+        }
+        BatchMatcher matcher = new BatchMatcher(index, ForkJoinPool.commonPool());
+        double[] lats = new double[BATCH_SIZE];
+        double[] lons = new double[BATCH_SIZE];
+        int[] driverIds = new int[BATCH_SIZE];
+        double[] distancesKm = new double[BATCH_SIZE];
+        double[] distance = new double[1];
+        long nanos = 0;
+        long matched = 0;
+        double totalKm = 0;
+        for(int b = 0; b < BATCHES; b++){
+            for(int r = 0; r < BATCH_SIZE; r++){
+                double[] lat = new double[1];
+                double[] lon = new double[1];
+                riderPosition(random, lat, lon);
+                lats[r] = lat[0];
+                lons[r] = lon[0];
+            }
+            long begin = System.nanoTime();
+            if(batched){
+                matcher.match(lats, lons, BATCH_SIZE, driverIds, distancesKm);
+            } else {
+                for(int r = 0; r < BATCH_SIZE; r++){
+                    driverIds[r] = index.claimNearest(lats[r], lons[r], distance);
+                    distancesKm[r] = distance[0];
+                }
+            }
+            nanos += System.nanoTime() - begin;
+            for(int r = 0; r < BATCH_SIZE; r++){
+                if(driverIds[r] != DriverIndex.NO_DRIVER){
+                    matched++;
+                    totalKm += distancesKm[r];
+                }
+            }
+            // drop-off, then the driver heads back to where the riders are: same positions in both runs
+            for(int r = 0; r < BATCH_SIZE; r++){
+                double[] lat = new double[1];
+                double[] lon = new double[1];
+                riderPosition(random, lat, lon);
+                if(driverIds[r] != DriverIndex.NO_DRIVER){
+                    index.update(driverIds[r], lat[0], lon[0]);
+                }
+            }
+        }
+        return new double[]{matched * 1e9 / nanos, totalKm / matched};
+    }
+
+    // 80% around a hot spot, the rest anywhere in the city
+    private static void riderPosition(Random random, double[] lat, double[] lon){
+        if(random.nextInt(10) < 8){
+            double[] spot = HOT_SPOTS[random.nextInt(HOT_SPOTS.length)];
+            lat[0] = spot[0] + random.nextGaussian() * 0.01;
+            lon[0] = spot[1] + random.nextGaussian() * 0.01;
+        } else {
+            lat[0] = MIN_LAT + random.nextDouble() * SPAN;
+            lon[0] = MIN_LON + random.nextDouble() * SPAN;
+        }
+    }
+}
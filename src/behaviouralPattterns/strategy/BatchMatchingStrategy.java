@@ -0,0 +1,7 @@
+package behaviouralPattterns.strategy;
+
+// Strategies that can also match many riders together, see BatchMatcher.java
+interface BatchMatchingStrategy extends MatchingStrategy {
+    // driverIds[i] = driver of locations[i], NO_DRIVER where nobody was found
+    void matchAll(long[] locations, int[] driverIds);
+}
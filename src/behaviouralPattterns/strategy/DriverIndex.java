@@ -0,0 +1,334 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Driver index: grid based spatial index for nearest driver matching
+ * ==================================================================================================================
+ *
+ * Scanning every driver per ride request is O(drivers), with 500K moving drivers that is far too slow. The index
+ * splits the map into a grid of square cells (cellSizeDegrees, ~1km by default, the same idea as a geohash prefix)
+ * and every cell keeps the drivers currently inside it.
+ *
+ * k nearest: start at the rider's cell, then look at the ring of 8 cells around it, then the next ring, and so on.
+ * Stop once we have k drivers and the kth one is closer than anything an unvisited ring could contain. In a city
+ * that is a handful of cells, independent of the total number of drivers.
+ *
+ * Location updates: a driver moving inside its cell just overwrites its coordinates. Moving to another cell is a
+ * remove from the old cell (swap with the last driver, O(1)) + append to the new one.
+ *
+ * Memory layout: a cell stores its drivers as parallel primitive arrays (ids, lats, lons), so a query scans
+ * contiguous memory and nothing is boxed. Cells are found through CellTable, an open-addressing long -> Cell map
+ * (cell key = row << 32 | column) that is read without locks.
+ *
+ * Concurrency: every cell has its own lock, held only while scanning or changing that cell. Updates of one driver
+ * are serialised by a striped lock on the driver id, so updates of different drivers run in parallel.
+ *
+ * KIM: distances use the equirectangular approximation (fine at city scale), and the grid does not wrap around the
+ * 180th meridian.
+ * */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+class DriverIndex{
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.01;
+    public static final int NO_DRIVER = -1;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private static final int LOCK_STRIPES = 1024;
+
+    static final class Cell{
+        int[] ids = new int[8];
+        double[] lats = new double[8];
+        double[] lons = new double[8];
+        int size;
+    }
+
+    private static final class ClaimScratch{
+        final int[] ids = new int[1];
+        final double[] distancesKm = new double[1];
+    }
+
+    private static final ThreadLocal<ClaimScratch> CLAIM_SCRATCH = ThreadLocal.withInitial(ClaimScratch::new);
+
+    private final double cellSizeDegrees;
+    private final int maxRings;
+    private final CellTable cells = new CellTable();
+    // per driver id: the cell it is in (NO_CELL = not available) and its position inside that cell
+    private final long[] driverCell;
+    private final int[] driverSlot;
+    private final Object[] driverLocks = new Object[LOCK_STRIPES];
+
+    public DriverIndex(int maxDrivers){
+        this(maxDrivers, DEFAULT_CELL_SIZE_DEGREES, 50);
+    }
+
+    // maxRings bounds the search radius to about maxRings * cellSizeDegrees around the rider
+    public DriverIndex(int maxDrivers, double cellSizeDegrees, int maxRings){
+        if(maxDrivers < 1 || cellSizeDegrees <= 0 || maxRings < 0){
+            throw new IllegalArgumentException("maxDrivers and cellSizeDegrees must be positive, maxRings >= 0");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.maxRings = maxRings;
+        this.driverCell = new long[maxDrivers];
+        this.driverSlot = new int[maxDrivers];
+        Arrays.fill(driverCell, NO_CELL);
+        for(int i = 0; i < LOCK_STRIPES; i++){
+            driverLocks[i] = new Object();
+        }
+    }
+
+    // Driver is available at (lat, lon): adds it, or moves it if it is already in the index.
+    public void update(int driverId, double lat, double lon){
+        long key = cellKey(row(lat), column(lon));
+        synchronized (driverLocks[driverId & (LOCK_STRIPES - 1)]){
+            long oldKey = driverCell[driverId];
+            if(oldKey == key){
+                Cell cell = cells.get(key);
+                synchronized (cell){
+                    int slot = driverSlot[driverId];
+                    cell.lats[slot] = lat;
+                    cell.lons[slot] = lon;
+                }
+                return;
+            }
+            if(oldKey != NO_CELL){
+                removeFromCell(driverId, cells.get(oldKey));
+            }
+            Cell cell = cells.getOrCreate(key);
+            synchronized (cell){
+                if(cell.size == cell.ids.length){
+                    int grown = cell.size * 2;
+                    cell.ids = Arrays.copyOf(cell.ids, grown);
+                    cell.lats = Arrays.copyOf(cell.lats, grown);
+                    cell.lons = Arrays.copyOf(cell.lons, grown);
+                }
+                int slot = cell.size++;
+                cell.ids[slot] = driverId;
+                cell.lats[slot] = lat;
+                cell.lons[slot] = lon;
+                driverSlot[driverId] = slot;
+            }
+            driverCell[driverId] = key;
+        }
+    }
+
+    // Driver is no longer available (went offline or got a ride). Returns false if it was not in the index.
+    public boolean remove(int driverId){
+        synchronized (driverLocks[driverId & (LOCK_STRIPES - 1)]){
+            long key = driverCell[driverId];
+            if(key == NO_CELL){
+                return false;
+            }
+            removeFromCell(driverId, cells.get(key));
+            driverCell[driverId] = NO_CELL;
+            return true;
+        }
+    }
+
+    private void removeFromCell(int driverId, Cell cell){
+        synchronized (cell){
+            int slot = driverSlot[driverId];
+            int last = --cell.size;
+            if(slot != last){
+                int moved = cell.ids[last];
+                cell.ids[slot] = moved;
+                cell.lats[slot] = cell.lats[last];
+                cell.lons[slot] = cell.lons[last];
+                driverSlot[moved] = slot;
+            }
+        }
+    }
+
+    /*
+     * Fills ids/distancesKm with up to k nearest available drivers, closest first, and returns how many were found.
+     * The arrays are supplied by the caller (length >= k) so a query allocates nothing.
+     */
+    public int nearest(double lat, double lon, int k, int[] ids, double[] distancesKm){
+        return nearest(lat, lon, k, ids, distancesKm, null, null);
+    }
+
+    // Same, and also fills the found drivers' positions when driverLats/driverLons are not null.
+    int nearest(double lat, double lon, int k, int[] ids, double[] distancesKm, double[] driverLats,
+                double[] driverLons){
+        if(k <= 0){
+            return 0;
+        }
+        int row = row(lat);
+        int column = column(lon);
+        double lonScale = Math.cos(Math.toRadians(lat));
+        // a ring r cells away is at least (r - 1) cells of the narrower cell side away from the rider
+        double ringKm = cellSizeDegrees * KM_PER_DEGREE * Math.min(1.0, lonScale);
+        int found = 0;
+        for(int ring = 0; ring <= maxRings; ring++){
+            if(found == k && distancesKm[k - 1] <= (ring - 1) * ringKm){
+                break;
+            }
+            for(int dr = -ring; dr <= ring; dr++){
+                boolean edgeRow = dr == -ring || dr == ring;
+                // inner rows of the ring only have their two edge cells
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for(int dc = -ring; dc <= ring; dc += step){
+                    Cell cell = cells.get(cellKey(row + dr, column + dc));
+                    if(cell != null){
+                        found = scan(cell, lat, lon, lonScale, k, ids, distancesKm, driverLats, driverLons, found);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int scan(Cell cell, double lat, double lon, double lonScale, int k, int[] ids,
+                            double[] distancesKm, double[] driverLats, double[] driverLons, int found){
+        synchronized (cell){
+            for(int i = 0; i < cell.size; i++){
+                double dLat = cell.lats[i] - lat;
+                double dLon = (cell.lons[i] - lon) * lonScale;
+                double km = Math.sqrt(dLat * dLat + dLon * dLon) * KM_PER_DEGREE;
+                if(found == k && km >= distancesKm[k - 1]){
+                    continue;
+                }
+                // insertion into the sorted top-k arrays
+                int position = found < k ? found++ : k - 1;
+                while(position > 0 && distancesKm[position - 1] > km){
+                    distancesKm[position] = distancesKm[position - 1];
+                    ids[position] = ids[position - 1];
+                    if(driverLats != null){
+                        driverLats[position] = driverLats[position - 1];
+                        driverLons[position] = driverLons[position - 1];
+                    }
+                    position--;
+                }
+                distancesKm[position] = km;
+                ids[position] = cell.ids[i];
+                if(driverLats != null){
+                    driverLats[position] = cell.lats[i];
+                    driverLons[position] = cell.lons[i];
+                }
+            }
+        }
+        return found;
+    }
+
+    public int claimNearest(double lat, double lon){
+        return claimNearest(lat, lon, null);
+    }
+
+    /*
+     * Finds the nearest available driver and removes it from the index in one go, so two riders can never get the
+     * same driver. Returns NO_DRIVER if nobody is within the search radius. distanceKm[0] gets the pickup distance
+     * unless distanceKm is null. Allocates nothing, the search arrays are kept per thread.
+     */
+    public int claimNearest(double lat, double lon, double[] distanceKm){
+        ClaimScratch scratch = CLAIM_SCRATCH.get();
+        int[] ids = scratch.ids;
+        double[] distances = distanceKm != null ? distanceKm : scratch.distancesKm;
+        while(true){
+            if(nearest(lat, lon, 1, ids, distances) == 0){
+                return NO_DRIVER;
+            }
+            // another rider may have claimed this driver between the query and now, then just look again
+            if(remove(ids[0])){
+                return ids[0];
+            }
+        }
+    }
+
+    // the same equirectangular distance the index ranks drivers by
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2){
+        double dLat = lat2 - lat1;
+        double dLon = (lon2 - lon1) * Math.cos(Math.toRadians(lat1));
+        return Math.sqrt(dLat * dLat + dLon * dLon) * KM_PER_DEGREE;
+    }
+
+    // key of the grid cell (lat, lon) falls in, riders with the same key share their nearby drivers
+    long cellOf(double lat, double lon){
+        return cellKey(row(lat), column(lon));
+    }
+
+    private int row(double lat){
+        return (int) Math.floor(lat / cellSizeDegrees);
+    }
+
+    private int column(double lon){
+        return (int) Math.floor(lon / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int column){
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    // long -> Cell open-addressing map, lock-free reads, cells are never removed.
+    private static final class CellTable{
+        private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Cell[].class);
+
+        private static final class Table{
+            final long[] keys;
+            final Cell[] cells;
+            final int mask;
+
+            Table(int capacity){
+                keys = new long[capacity];
+                cells = new Cell[capacity];
+                mask = capacity - 1;
+            }
+        }
+
+        private volatile Table table = new Table(1024);
+        private int size;
+
+        Cell get(long key){
+            Table current = table;
+            int index = hash(key) & current.mask;
+            while(true){
+                Cell cell = (Cell) CELLS.getAcquire(current.cells, index);
+                if(cell == null){
+                    // not there, or being inserted right now: check again under the lock
+                    return null;
+                }
+                if(current.keys[index] == key){
+                    return cell;
+                }
+                index = (index + 1) & current.mask;
+            }
+        }
+
+        synchronized Cell getOrCreate(long key){
+            Cell existing = get(key);
+            if(existing != null){
+                return existing;
+            }
+            if((size + 1) * 2 > table.keys.length){
+                Table grown = new Table(table.keys.length * 2);
+                for(int i = 0; i < table.keys.length; i++){
+                    if(table.cells[i] != null){
+                        insert(grown, table.keys[i], table.cells[i]);
+                    }
+                }
+                table = grown;
+            }
+            Cell cell = new Cell();
+            insert(table, key, cell);
+            size++;
+            return cell;
+        }
+
+        private static void insert(Table table, long key, Cell cell){
+            int index = hash(key) & table.mask;
+            while(table.cells[index] != null){
+                index = (index + 1) & table.mask;
+            }
+            // key first, a reader that sees the cell (acquire) also sees its key
+            table.keys[index] = key;
+            CELLS.setRelease(table.cells, index, cell);
+        }
+
+        private static int hash(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
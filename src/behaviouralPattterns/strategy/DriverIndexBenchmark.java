@@ -0,0 +1,90 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Benchmark: DriverIndex with 500K drivers and 50K location updates/sec
+ * ==================================================================================================================
+ *
+ * 500K drivers spread over a ~45km x 45km city. One thread moves random drivers by up to ~200m at 50K updates/sec
+ * (paced), while the main thread runs 5-nearest queries at random rider positions and records each query's latency.
+ *
+ * KIM: plain main() harness (no JMH in this project), percentiles come from the sorted latencies of the measured
+ * round.
+ * */
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DriverIndexBenchmark {
+    private static final int DRIVERS = 500_000;
+    private static final int UPDATES_PER_SECOND = 50_000;
+    private static final int QUERIES = 200_000;
+    private static final int K = 5;
+    private static final double MIN_LAT = 12.80;
+    private static final double MIN_LON = 77.40;
+    private static final double SPAN = 0.40;
+
+    public static void main(String[] args) throws InterruptedException {
+        DriverIndex index = new DriverIndex(DRIVERS);
+        double[] lats = new double[DRIVERS];
+        double[] lons = new double[DRIVERS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < DRIVERS; i++){
+            lats[i] = MIN_LAT + random.nextDouble() * SPAN;
+            lons[i] = MIN_LON + random.nextDouble() * SPAN;
+            index.update(i, lats[i], lons[i]);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong updates = new AtomicLong();
+        Thread updater = new Thread(() -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            while(running.get()){
+                // pace to UPDATES_PER_SECOND
+                long due = (System.nanoTime() - start) * UPDATES_PER_SECOND / 1_000_000_000L;
+                if(updates.get() >= due){
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int driver = rnd.nextInt(DRIVERS);
+                lats[driver] = clamp(lats[driver] + (rnd.nextDouble() - 0.5) * 0.004, MIN_LAT);
+                lons[driver] = clamp(lons[driver] + (rnd.nextDouble() - 0.5) * 0.004, MIN_LON);
+                index.update(driver, lats[driver], lons[driver]);
+                updates.incrementAndGet();
+            }
+        });
+        updater.start();
+
+        int[] ids = new int[K];
+        double[] distances = new double[K];
+        long[] latencies = new long[QUERIES];
+        for(int round = 0; round < 2; round++){
+            long begin = System.nanoTime();
+            long updatesBefore = updates.get();
+            for(int q = 0; q < QUERIES; q++){
+                double lat = MIN_LAT + random.nextDouble() * SPAN;
+                double lon = MIN_LON + random.nextDouble() * SPAN;
+                long start = System.nanoTime();
+                index.nearest(lat, lon, K, ids, distances);
+                latencies[q] = System.nanoTime() - start;
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            if(round == 1){
+                Arrays.sort(latencies);
+                System.out.printf("%d drivers, %d-nearest: p50=%d ns p99=%d ns p99.9=%d ns max=%d ns, "
+                                + "%.0f queries/s while applying %.0f updates/s%n", DRIVERS, K,
+                        latencies[QUERIES / 2], latencies[QUERIES * 99 / 100], latencies[QUERIES * 999 / 1000],
+                        latencies[QUERIES - 1], QUERIES / seconds, (updates.get() - updatesBefore) / seconds);
+            }
+        }
+        running.set(false);
+        updater.join();
+    }
+
+    private static double clamp(double value, double min){
+        return Math.max(min, Math.min(min + SPAN, value));
+    }
+}
@@ -0,0 +1,28 @@
+package behaviouralPattterns.strategy;
+
+// lat/lon packed into one long: upper 32 bits latitude, lower 32 bits longitude, both in 1e-7 degrees (~1cm)
+final class Location{
+    private static final double SCALE = 1e7;
+
+    private Location(){
+    }
+
+    static long of(double lat, double lon){
+        if(lat < -90 || lat > 90 || lon < -180 || lon > 180){
+            throw new IllegalArgumentException("not a valid coordinate: " + lat + "," + lon);
+        }
+        return ((long) (int) Math.round(lat * SCALE) << 32) | ((int) Math.round(lon * SCALE) & 0xFFFFFFFFL);
+    }
+
+    static double lat(long location){
+        return (int) (location >> 32) / SCALE;
+    }
+
+    static double lon(long location){
+        return (int) location / SCALE;
+    }
+
+    static String toString(long location){
+        return lat(location) + "," + lon(location);
+    }
+}
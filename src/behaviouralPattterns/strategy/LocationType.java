@@ -0,0 +1,5 @@
+package behaviouralPattterns.strategy;
+
+enum LocationType {
+    AIRPORT, SURGE, REGULAR
+}
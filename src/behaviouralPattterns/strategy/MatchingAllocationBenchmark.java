@@ -0,0 +1,134 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Benchmark: bytes allocated per match on the hot path
+ * ==================================================================================================================
+ *
+ * Every strategy is driven through RideMatchingService.matchRider(long) with precomputed Location longs, and the
+ * bytes allocated by the matching thread are read before and after each batch of matches from
+ * com.sun.management.ThreadMXBean.getThreadAllocatedBytes. Matched drivers are put back between batches (that part
+ * is not measured: AirportDriverQueue.offer allocates its node by design).
+ *
+ * The String path matchRider("Mall") is measured as well, it should be allocation-free too once "Mall" is interned.
+ *
+ * KIM: plain main() harness with a warm-up round so the JIT has compiled the path (no JMH in this project). With JMH
+ * the same check is -prof gc and gc.alloc.rate.norm. Expect 0 B/match, a few bytes can show up when a TLAB is
+ * refilled in the middle of a batch.
+ * */
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MatchingAllocationBenchmark {
+    private static final int DRIVERS = 100_000;
+    private static final int BATCH = 1_000;
+    private static final int BATCHES = 500;
+    private static final double MIN_LAT = 12.80;
+    private static final double MIN_LON = 77.40;
+    private static final double SPAN = 0.40;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Refill{
+        void driverBack(int driverId);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        DriverIndex drivers = new DriverIndex(DRIVERS);
+        for(int driver = 0; driver < DRIVERS; driver++){
+            drivers.update(driver, MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+        }
+        AirportDriverQueue lot = new AirportDriverQueue("Airport", DRIVERS);
+        for(int driver = 0; driver < BATCH * 2; driver++){
+            lot.offer(driver);
+        }
+        long[] riders = new long[BATCH];
+        for(int i = 0; i < BATCH; i++){
+            riders[i] = Location.of(MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+        }
+        long[] airportRiders = new long[BATCH];
+        Arrays.fill(airportRiders, PlaceDirectory.intern("Airport"));
+        Refill backToCity = driverId -> drivers.update(driverId, MIN_LAT + random.nextDouble() * SPAN,
+                MIN_LON + random.nextDouble() * SPAN);
+        // all "Mall" riders stand at the same spot, so their drivers come back around the mall
+        long mall = PlaceDirectory.intern("Mall");
+        Refill backToMall = driverId -> drivers.update(driverId, Location.lat(mall) + random.nextGaussian() * 0.005,
+                Location.lon(mall) + random.nextGaussian() * 0.005);
+
+        try(SurgeEngine surge = new SurgeEngine(MIN_LAT, MIN_LON, 0.02, 20, 20, 12, 1000, 3.0);
+            StrategyRouter router = new StrategyRouter(new NearestDriverStrategy(drivers),
+                    new SurgePriorityStrategy(surge, drivers), new AirportQueueStrategy(lot), 500, 1000)){
+            RideMatchingService service = new RideMatchingService(new NearestDriverStrategy(drivers));
+            for(int round = 0; round < 2; round++){
+                boolean report = round == 1;
+                service.setStrategy(new NearestDriverStrategy(drivers));
+                run("nearest", service, riders, backToCity, report);
+                service.setStrategy(new SurgePriorityStrategy(surge, drivers));
+                run("surge", service, riders, backToCity, report);
+                service.setStrategy(new AirportQueueStrategy(lot));
+                run("airport", service, airportRiders, lot::offer, report);
+                service.setStrategy(router);
+                run("router", service, riders, backToCity, report);
+                runNamed(service, backToMall, report);
+            }
+        }
+    }
+
+    private static void run(String name, RideMatchingService service, long[] riders, Refill refill, boolean report){
+        int[] matched = new int[BATCH];
+        long bytes = 0;
+        long nanos = 0;
+        long threadId = Thread.currentThread().getId();
+        for(int b = 0; b < BATCHES; b++){
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long begin = System.nanoTime();
+            for(int i = 0; i < BATCH; i++){
+                matched[i] = service.matchRider(riders[i]);
+            }
+            nanos += System.nanoTime() - begin;
+            bytes += THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            putBack(matched, refill);
+        }
+        if(report){
+            print(name, bytes, nanos);
+        }
+    }
+
+    private static void runNamed(RideMatchingService service, Refill refill, boolean report){
+        int[] matched = new int[BATCH];
+        long bytes = 0;
+        long nanos = 0;
+        long threadId = Thread.currentThread().getId();
+        for(int b = 0; b < BATCHES; b++){
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long begin = System.nanoTime();
+            for(int i = 0; i < BATCH; i++){
+                matched[i] = service.matchRider("Mall");
+            }
+            nanos += System.nanoTime() - begin;
+            bytes += THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            putBack(matched, refill);
+        }
+        if(report){
+            print("router, \"Mall\"", bytes, nanos);
+        }
+    }
+
+    private static void putBack(int[] matched, Refill refill){
+        for(int driver : matched){
+            if(driver != MatchingStrategy.NO_DRIVER){
+                refill.driverBack(driver);
+            }
+        }
+    }
+
+    private static void print(String name, long bytes, long nanos){
+        long matches = (long) BATCH * BATCHES;
+        System.out.printf("%-16s %6.2f B/match  %7.1f ns/match%n", name, (double) bytes / matches,
+                (double) nanos / matches);
+    }
+}
@@ -0,0 +1,9 @@
+package behaviouralPattterns.strategy;
+
+// Step 1: Interface
+interface MatchingStrategy {
+    int NO_DRIVER = DriverIndex.NO_DRIVER;
+
+    // location is a Location long (see PlaceDirectory.java), returns the id of the matched driver, or NO_DRIVER
+    int match(long location);
+}
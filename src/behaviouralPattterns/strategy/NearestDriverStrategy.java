@@ -0,0 +1,32 @@
+package behaviouralPattterns.strategy;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Step 2: Standalone strategy classes
+class NearestDriverStrategy implements BatchMatchingStrategy {
+    // available drivers and where they are, see DriverIndex.java
+    private final DriverIndex drivers;
+    private final BatchMatcher batchMatcher;
+
+    public NearestDriverStrategy(DriverIndex drivers) {
+        this.drivers = drivers;
+        this.batchMatcher = new BatchMatcher(drivers, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public void matchAll(long[] locations, int[] driverIds) {
+        int count = locations.length;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = Location.lat(locations[i]);
+            lons[i] = Location.lon(locations[i]);
+        }
+        batchMatcher.match(lats, lons, count, driverIds, new double[count]);
+    }
+
+    @Override
+    public int match(long location) {
+        return drivers.claimNearest(Location.lat(location), Location.lon(location));
+    }
+}
@@ -0,0 +1,67 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Place directory: turns what a rider sends into a Location (one primitive long)
+ * ==================================================================================================================
+ *
+ * Riders send either a named place ("Mall", "Airport") or raw coordinates ("12.9716,77.5946"). Strategies work with
+ * Location longs only, so the String is looked at once, at the edge, and never again on the matching path.
+ *
+ * intern() caches every String it has seen (named places and parsed coordinates, up to MAX_INTERNED entries), so
+ * asking for "Mall" again is one map lookup that returns the already boxed value, no parsing and no toLowerCase().
+ * */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class PlaceDirectory{
+    static final int MAX_INTERNED = 100_000;
+    // lower case place name -> location
+    private static final Map<String, Long> PLACES = new ConcurrentHashMap<>();
+    // exact String as the rider sent it -> location
+    private static final Map<String, Long> INTERNED = new ConcurrentHashMap<>();
+
+    static {
+        register("Mall", 12.9352, 77.6245);
+        register("Auditorium", 12.9767, 77.5713);
+        register("Villa", 12.9141, 77.6411);
+        register("Airport", 13.1986, 77.7066);
+    }
+
+    public static void register(String name, double lat, double lon){
+        long location = Location.of(lat, lon);
+        PLACES.put(name.toLowerCase(), location);
+        INTERNED.put(name, location);
+    }
+
+    // Location of a place name or a "lat,lon" string, cached after the first time.
+    public static long intern(String location){
+        Long cached = INTERNED.get(location);
+        if(cached != null){
+            return cached;
+        }
+        long resolved = resolve(location);
+        if(INTERNED.size() < MAX_INTERNED){
+            INTERNED.put(location, resolved);
+        }
+        return resolved;
+    }
+
+    private static long resolve(String location){
+        Long named = PLACES.get(location.toLowerCase());
+        if(named != null){
+            return named;
+        }
+        int comma = location.indexOf(',');
+        if(comma > 0){
+            try {
+                return Location.of(Double.parseDouble(location.substring(0, comma).trim()),
+                        Double.parseDouble(location.substring(comma + 1).trim()));
+            } catch (NumberFormatException e) {
+                // fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException("unknown location: " + location);
+    }
+}
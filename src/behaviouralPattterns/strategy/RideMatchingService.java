@@ -0,0 +1,35 @@
+package behaviouralPattterns.strategy;
+
+// Step 3: Service
+class RideMatchingService{
+    private MatchingStrategy strategy;
+    public RideMatchingService(MatchingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public void setStrategy(MatchingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    // the hot path: location is already a Location long, nothing is parsed or allocated
+    public int matchRider(long location) {
+        return strategy.match(location);
+    }
+
+    // convenience for a place name or "lat,lon", interned so the String is parsed only the first time
+    public int matchRider(String location) {
+        return matchRider(PlaceDirectory.intern(location));
+    }
+
+    // Matches a batch of riders together when the strategy supports it, otherwise one by one in order.
+    public void matchRiders(long[] locations, int[] driverIds) {
+        MatchingStrategy current = strategy;
+        if (current instanceof BatchMatchingStrategy) {
+            ((BatchMatchingStrategy) current).matchAll(locations, driverIds);
+            return;
+        }
+        for (int i = 0; i < locations.length; i++) {
+            driverIds[i] = current.match(locations[i]);
+        }
+    }
+}
@@ -21,61 +21,75 @@ package behaviouralPattterns.strategy;
  * TODO: After understanding UML section watch class diagram of this video.
  * */
 
-// Step 1: Interface
-interface MatchingStrategy {
-    void match(String location);
-}
-
-// Step 2: Standalone strategy classes
-class NearestDriverStrategy implements MatchingStrategy {
-    @Override
-    public void match(String location) {
-        System.out.println("Matching with the Nearest Driver to " + location);
-        // Distance based matching logic
-    }
-}
+import java.util.Arrays;
+import java.util.List;
 
-class SurgePriorityStrategy implements MatchingStrategy {
-    @Override
-    public void match(String location) {
-        System.out.println("Matching using Surge Priority for " + location);
-        // prioritize high-surge zones or premium drivers
-    }
-}
-
-class AirportQueueStrategy implements MatchingStrategy {
-    @Override
-    public void match(String location) {
-        System.out.println("Matching using FIFO Airport Queue for " + location);
-        // Match first in line driver for airport pickup
-    }
-}
-
-// Step 3: Service
-class RideMatchingService{
-    private MatchingStrategy strategy;
-    public RideMatchingService(MatchingStrategy strategy) {
-        this.strategy = strategy;
-    }
+public class Strategy{
+    public static void main(String[] args) {
+        // Strings are turned into Location longs once, at the edge. The strategies only see the longs.
+        long mallLocation = PlaceDirectory.intern("Mall");
+        long villa = PlaceDirectory.intern("Villa");
+        long airport = PlaceDirectory.intern("Airport");
 
-    public void setStrategy(MatchingStrategy strategy) {
-        this.strategy = strategy;
-    }
+        DriverIndex surgeDrivers = new DriverIndex(100);
+        surgeDrivers.update(3, 12.9360, 77.6250);
+        try (SurgeEngine surge = new SurgeEngine(12.80, 77.40, 0.02, 20, 20, 12, 0, 3.0)) {
+            int mall = surge.zoneOf(12.9352, 77.6245);
+            surge.recordSupply(mall);
+            for (int i = 0; i < 4; i++) {
+                surge.recordDemand(mall);   // 4 riders, 1 driver in the last minute
+            }
+            surge.tick();
+            SurgePriorityStrategy surgePriority = new SurgePriorityStrategy(surge, surgeDrivers);
+            RideMatchingService service = new RideMatchingService(surgePriority);
+            // 4 riders per driver = x4.0, capped at x3.0
+            System.out.printf("Matching using Surge Priority for Mall: x%.1f surge, driver %d%n",
+                    surgePriority.multiplier(mallLocation), service.matchRider(mallLocation));
+        }
 
-    public void matchRider(String location) {
-        strategy.match(location);
-    }
-}
+        AirportDriverQueue lot = new AirportDriverQueue("Airport", 100);
+        lot.offer(7);
+        lot.offer(8);
+        lot.offer(9);
+        lot.remove(8);    // driver 8 leaves the lot
+        RideMatchingService service2 = new RideMatchingService(new AirportQueueStrategy(lot));
+        System.out.println("Airport: driver " + service2.matchRider(airport));    // 7, first in line
+        System.out.println("Airport: driver " + service2.matchRider("Airport"));  // 9, 8 left
+        System.out.println("Auditorium: driver " + service2.matchRider("Auditorium"));  // NO_DRIVER, no airport there
+        DriverIndex drivers = new DriverIndex(100);
+        drivers.update(1, 12.9150, 77.6400);
+        drivers.update(2, 12.9700, 77.5900);
+        service2.setStrategy(new NearestDriverStrategy(drivers));
+        System.out.println("Nearest Driver to Villa: driver " + service2.matchRider(villa));  // 1, next to the villa
+        System.out.println("Nearest Driver to Villa: driver " + service2.matchRider(villa));  // 2, 1 is busy now
 
-public class Strategy{
-    public static void main(String[] args) {
-        RideMatchingService service = new RideMatchingService(new SurgePriorityStrategy());
-        service.matchRider("Mall");
+        drivers.update(4, 12.9360, 77.6240);    // at the mall
+        drivers.update(5, 12.9760, 77.5720);    // at the auditorium
+        drivers.update(6, 12.9350, 77.6300);    // a bit further from the mall
+        // matched together: the two mall riders are one group (drivers 4 and 6), the auditorium rider gets 5
+        int[] batch = new int[3];
+        service2.matchRiders(new long[]{mallLocation, PlaceDirectory.intern("Auditorium"), mallLocation}, batch);
+        System.out.println("Batch: drivers " + Arrays.toString(batch));
 
-        RideMatchingService service2 = new RideMatchingService(new AirportQueueStrategy());
-        service2.matchRider("Auditorium");
-        service2.setStrategy(new NearestDriverStrategy());
-        service2.matchRider("Villa");
+        // no more setStrategy() by hand: the router picks per request, see StrategyRouter.java
+        lot.offer(10);
+        drivers.update(11, 12.9355, 77.6250);   // at the mall
+        drivers.update(12, 12.9140, 77.6415);   // at the villa
+        try (SurgeEngine surge = new SurgeEngine(12.80, 77.40, 0.02, 20, 20, 12, 0, 3.0);
+             StrategyRouter router = new StrategyRouter(new NearestDriverStrategy(drivers),
+                     new SurgePriorityStrategy(surge, drivers), new AirportQueueStrategy(lot), 500, 0)) {
+            int mall = surge.zoneOf(12.9352, 77.6245);
+            for (int i = 0; i < 3; i++) {
+                surge.recordDemand(mall);
+            }
+            surge.tick();
+            service2.setStrategy(router);
+            for (String location : List.of("Airport", "Mall", "Villa")) {
+                LocationType type = router.classify(PlaceDirectory.intern(location));
+                System.out.println("Router: " + location + " is " + type + ", driver " + service2.matchRider(location));
+            }
+            System.out.println(router);
+        }
     }
 }
 
@@ -0,0 +1,192 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Strategy router: picks the matching strategy per request instead of setStrategy() by hand
+ * ==================================================================================================================
+ *
+ * The router is itself a MatchingStrategy, so RideMatchingService does not change: new RideMatchingService(router).
+ *
+ * Per request:
+ *      1) location type: an airport with a driver queue -> AirportQueueStrategy, a zone with surge -> Surge, anything
+ *         else -> Nearest
+ *      2) if that strategy is degraded (too slow, see below) use the cheaper fallback (Nearest) instead, except for
+ *         1 in PROBE_EVERY requests that still go to the degraded strategy so we notice when it is fast again
+ *      3) quality: if the chosen strategy finds no driver (empty airport queue, ...) Nearest gets a try as well
+ *
+ * Every strategy has a latency histogram. Every evaluateMillis a timer takes the p99 of the last interval of every
+ * strategy and marks it degraded when the p99 is over the budget, healthy again when it is below 80% of the budget
+ * (the gap keeps a strategy near the budget from flipping every interval). A strategy with fewer than MIN_SAMPLES
+ * samples is not judged and its samples are kept for the next interval: a degraded strategy only sees 1 in
+ * PROBE_EVERY of its requests, so its probes add up over several intervals until there are enough of them.
+ *
+ * Lock-free switch: the degraded flags live in an immutable RoutingTable behind an AtomicReference. The timer builds
+ * a new table and swaps it in, a request only reads the current table (one volatile read). Recording a latency is
+ * one atomic increment, nothing on the request path waits for anything.
+ * */
+
+import behaviouralPattterns.metrics.LatencyHistogram;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+class StrategyRouter implements MatchingStrategy, AutoCloseable{
+    public static final int PROBE_EVERY = 64;
+    private static final long MIN_SAMPLES = 20;
+
+    private static final int NEAREST = 0;
+    private static final int SURGE = 1;
+    private static final int AIRPORT = 2;
+
+    private static final class TrackedStrategy{
+        final String name;
+        final MatchingStrategy strategy;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        // p99 of the last interval that had enough samples, written by the timer only
+        volatile long lastP99Nanos;
+
+        TrackedStrategy(String name, MatchingStrategy strategy){
+            this.name = name;
+            this.strategy = strategy;
+        }
+    }
+
+    // Immutable, replaced as a whole by the timer.
+    private static final class RoutingTable{
+        final boolean[] degraded;
+
+        RoutingTable(boolean[] degraded){
+            this.degraded = degraded;
+        }
+    }
+
+    private final TrackedStrategy[] strategies;
+    private final AirportQueueStrategy airport;
+    private final SurgePriorityStrategy surge;
+    private final long p99BudgetNanos;
+    private final AtomicReference<RoutingTable> table = new AtomicReference<>(new RoutingTable(new boolean[3]));
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "strategy-router");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // evaluateMillis = 0 means no timer, call evaluate() yourself
+    public StrategyRouter(NearestDriverStrategy nearest, SurgePriorityStrategy surge, AirportQueueStrategy airport,
+                          long p99BudgetMicros, long evaluateMillis){
+        if(p99BudgetMicros < 1){
+            throw new IllegalArgumentException("p99BudgetMicros must be positive");
+        }
+        this.airport = airport;
+        this.surge = surge;
+        this.p99BudgetNanos = TimeUnit.MICROSECONDS.toNanos(p99BudgetMicros);
+        this.strategies = new TrackedStrategy[]{
+                new TrackedStrategy("nearest", nearest),
+                new TrackedStrategy("surge", surge),
+                new TrackedStrategy("airport", airport)};
+        if(evaluateMillis > 0){
+            timer.scheduleWithFixedDelay(this::evaluate, evaluateMillis, evaluateMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public LocationType classify(long location){
+        if(airport.serves(location)){
+            return LocationType.AIRPORT;
+        }
+        if(surge.isSurging(location)){
+            return LocationType.SURGE;
+        }
+        return LocationType.REGULAR;
+    }
+
+    @Override
+    public int match(long location) {
+        int primary;
+        switch (classify(location)){
+            case AIRPORT:
+                primary = AIRPORT;
+                break;
+            case SURGE:
+                primary = SURGE;
+                break;
+            default:
+                primary = NEAREST;
+        }
+        int chosen = primary;
+        if(primary != NEAREST && table.get().degraded[primary]
+                && ThreadLocalRandom.current().nextInt(PROBE_EVERY) != 0){
+            chosen = NEAREST;
+        }
+        int driver = run(strategies[chosen], location);
+        if(driver == NO_DRIVER && chosen != NEAREST){
+            driver = run(strategies[NEAREST], location);
+        }
+        return driver;
+    }
+
+    private static int run(TrackedStrategy tracked, long location){
+        long start = System.nanoTime();
+        int driver = tracked.strategy.match(location);
+        tracked.latency.record(System.nanoTime() - start);
+        tracked.requests.increment();
+        if(driver == NO_DRIVER){
+            tracked.misses.increment();
+        }
+        return driver;
+    }
+
+    // One evaluation interval: p99 per strategy -> new degraded flags. Runs on the timer.
+    public synchronized void evaluate(){
+        RoutingTable current = table.get();
+        boolean[] degraded = current.degraded.clone();
+        boolean changed = false;
+        for(int i = 0; i < strategies.length; i++){
+            LatencyHistogram latency = strategies[i].latency;
+            if(latency.snapshot().count < MIN_SAMPLES){
+                // too few samples to judge: keep the previous decision and keep the samples for the next interval
+                continue;
+            }
+            long p99 = latency.drain().percentile(99);
+            strategies[i].lastP99Nanos = p99;
+            boolean slow = degraded[i] ? p99 * 5 >= p99BudgetNanos * 4 : p99 > p99BudgetNanos;
+            if(slow != degraded[i]){
+                degraded[i] = slow;
+                changed = true;
+            }
+        }
+        if(changed){
+            table.set(new RoutingTable(degraded));
+        }
+    }
+
+    public boolean isDegraded(LocationType type){
+        boolean[] degraded = table.get().degraded;
+        return type == LocationType.AIRPORT ? degraded[AIRPORT] : type == LocationType.SURGE && degraded[SURGE];
+    }
+
+    @Override
+    public String toString() {
+        boolean[] degraded = table.get().degraded;
+        StringBuilder report = new StringBuilder("StrategyRouter{");
+        for(int i = 0; i < strategies.length; i++){
+            TrackedStrategy tracked = strategies[i];
+            report.append(i == 0 ? "" : ", ").append(tracked.name)
+                    .append(": requests=").append(tracked.requests.sum())
+                    .append(" misses=").append(tracked.misses.sum())
+                    .append(" p99=").append(tracked.lastP99Nanos / 1000).append("us")
+                    .append(degraded[i] ? " DEGRADED" : "");
+        }
+        return report.append('}').toString();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
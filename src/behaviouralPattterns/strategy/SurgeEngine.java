@@ -0,0 +1,166 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Surge engine: per zone demand/supply over a sliding window -> surge multiplier
+ * ==================================================================================================================
+ *
+ * The city is a grid of zones (zoneSizeDegrees, ~2km by default). Every ride request in a zone is a demand event and
+ * every driver becoming available there is a supply event. The multiplier of a zone is demand / supply over the last
+ * window (e.g. 12 buckets of 5s = the last minute), clamped to [1, maxMultiplier].
+ *
+ * Counters: all zones share flat primitive arrays, nothing is allocated per zone or per event.
+ *      buckets[zone * S + b]   events of bucket b (one bucket = one tick), S = B rounded up to a multiple of 16
+ *      window[zone * 16]       sum of the zone's B buckets = events in the sliding window
+ * The strides keep the hot counters of two zones at least 16 ints (one 64 byte cache line) apart, so threads
+ * recording into neighbouring zones (a busy downtown grid) do not false share a line.
+ * Recording an event is two atomic increments: the current bucket and the window sum. Every tick the oldest bucket
+ * is taken out of the window with getAndSet(0) (so an increment that raced with the tick is still subtracted exactly
+ * once, the window never drifts), then the multipliers are recomputed from the window sums and the next bucket
+ * becomes the current one. A tick is O(zones), not O(zones * B).
+ *
+ * Reading: match() reads multiplierHundredths[zone], a plain atomic read, no lock and no waiting for the recompute.
+ *
+ * Memory per zone is constant: (S + 16) demand ints + (S + 16) supply ints + 1 multiplier int, 260 bytes with 12
+ * buckets, so 50K zones are ~13MB. The padding is most of it, it buys uncontended increments.
+ *
+ * KIM: the multiplier is kept in hundredths (150 = 1.5x) so it fits an int array that can be read atomically.
+ * */
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+class SurgeEngine implements AutoCloseable{
+    public static final int NO_SURGE = 100;
+    // ints per 64 byte cache line
+    private static final int PAD = 16;
+
+    private final double minLat;
+    private final double minLon;
+    private final double zoneSizeDegrees;
+    private final int rows;
+    private final int columns;
+    private final int bucketCount;
+    // ints between the buckets of two zones, bucketCount rounded up to whole cache lines
+    private final int bucketStride;
+    private final int maxMultiplierHundredths;
+
+    private final AtomicIntegerArray demandBuckets;
+    private final AtomicIntegerArray supplyBuckets;
+    private final AtomicIntegerArray demandWindow;
+    private final AtomicIntegerArray supplyWindow;
+    private final AtomicIntegerArray multiplierHundredths;
+    // bucket events are recorded into, only the tick moves it
+    private volatile int currentBucket;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "surge-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /*
+     * Zones cover rows x columns cells of zoneSizeDegrees starting at (minLat, minLon), locations outside are counted
+     * in the nearest border zone. The window is bucketCount ticks of tickMillis.
+     */
+    public SurgeEngine(double minLat, double minLon, double zoneSizeDegrees, int rows, int columns,
+                       int bucketCount, long tickMillis, double maxMultiplier){
+        if(zoneSizeDegrees <= 0 || rows < 1 || columns < 1 || bucketCount < 2 || maxMultiplier < 1){
+            throw new IllegalArgumentException("need zoneSizeDegrees > 0, rows/columns >= 1, bucketCount >= 2"
+                    + " and maxMultiplier >= 1");
+        }
+        long zones = (long) rows * columns;
+        int stride = (bucketCount + PAD - 1) / PAD * PAD;
+        if(zones * stride > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("too many zones: " + zones);
+        }
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.zoneSizeDegrees = zoneSizeDegrees;
+        this.rows = rows;
+        this.columns = columns;
+        this.bucketCount = bucketCount;
+        this.bucketStride = stride;
+        this.maxMultiplierHundredths = (int) Math.round(maxMultiplier * 100);
+        this.demandBuckets = new AtomicIntegerArray((int) zones * stride);
+        this.supplyBuckets = new AtomicIntegerArray((int) zones * stride);
+        this.demandWindow = new AtomicIntegerArray((int) zones * PAD);
+        this.supplyWindow = new AtomicIntegerArray((int) zones * PAD);
+        this.multiplierHundredths = new AtomicIntegerArray((int) zones);
+        for(int zone = 0; zone < zones; zone++){
+            multiplierHundredths.set(zone, NO_SURGE);
+        }
+        if(tickMillis > 0){
+            timer.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int zones(){
+        return rows * columns;
+    }
+
+    public int zoneOf(double lat, double lon){
+        int row = Math.min(rows - 1, Math.max(0, (int) Math.floor((lat - minLat) / zoneSizeDegrees)));
+        int column = Math.min(columns - 1, Math.max(0, (int) Math.floor((lon - minLon) / zoneSizeDegrees)));
+        return row * columns + column;
+    }
+
+    // A rider asked for a ride in this zone.
+    public void recordDemand(int zone){
+        demandBuckets.getAndIncrement(zone * bucketStride + currentBucket);
+        demandWindow.getAndIncrement(zone * PAD);
+    }
+
+    // A driver became available in this zone.
+    public void recordSupply(int zone){
+        supplyBuckets.getAndIncrement(zone * bucketStride + currentBucket);
+        supplyWindow.getAndIncrement(zone * PAD);
+    }
+
+    // Current multiplier of the zone, 1.0 = no surge. Never blocks.
+    public double multiplier(int zone){
+        return multiplierHundredths.get(zone) / 100.0;
+    }
+
+    /*
+     * One step of the sliding window: drop the oldest bucket from every zone's window, recompute the multipliers and
+     * start recording into the dropped (now empty) bucket. Runs on the timer, callable directly when tickMillis = 0.
+     */
+    public synchronized void tick(){
+        int next = (currentBucket + 1) % bucketCount;
+        int zones = zones();
+        for(int zone = 0; zone < zones; zone++){
+            int slot = zone * bucketStride + next;
+            int window = zone * PAD;
+            int expiredDemand = demandBuckets.getAndSet(slot, 0);
+            if(expiredDemand != 0){
+                demandWindow.getAndAdd(window, -expiredDemand);
+            }
+            int expiredSupply = supplyBuckets.getAndSet(slot, 0);
+            if(expiredSupply != 0){
+                supplyWindow.getAndAdd(window, -expiredSupply);
+            }
+            int surge = surge(demandWindow.get(window), supplyWindow.get(window));
+            if(surge != multiplierHundredths.get(zone)){
+                multiplierHundredths.set(zone, surge);
+            }
+        }
+        currentBucket = next;
+    }
+
+    // demand / supply in hundredths, rounded down to 0.1x steps so prices do not flicker
+    private int surge(int demand, int supply){
+        if(demand <= supply){
+            return NO_SURGE;
+        }
+        long hundredths = (long) demand * 100 / Math.max(1, supply);
+        return (int) Math.min(maxMultiplierHundredths, hundredths / 10 * 10);
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
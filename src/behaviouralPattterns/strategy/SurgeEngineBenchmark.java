@@ -0,0 +1,86 @@
+package behaviouralPattterns.strategy;
+
+/*
+ * ==================================================================================================================
+ * Benchmark: SurgeEngine with 50K zones
+ * ==================================================================================================================
+ *
+ *      1) record: 1, 4 and 16 threads record demand/supply events into random zones while the timer ticks every
+ *         100ms, ns per event.
+ *      2) tick: time of one tick (drop oldest bucket + recompute every multiplier) over all 50K zones.
+ *      3) read: ns per multiplier() read, what match() pays.
+ *
+ * KIM: plain main() harness with a warm-up round (no JMH in this project).
+ * */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class SurgeEngineBenchmark {
+    private static final int ROWS = 250;
+    private static final int COLUMNS = 200;
+    private static final int EVENTS_PER_THREAD = 2_000_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    public static void main(String[] args) throws InterruptedException {
+        try(SurgeEngine engine = new SurgeEngine(12.0, 77.0, 0.01, ROWS, COLUMNS, 12, 100, 3.0)){
+            System.out.printf("%d zones%n", engine.zones());
+            for(int threads : THREAD_COUNTS){
+                record(engine, threads);
+                long nanos = record(engine, threads);
+                System.out.printf("record: threads=%2d  %6.1f ns/event%n", threads,
+                        (double) nanos / ((long) EVENTS_PER_THREAD * threads));
+            }
+        }
+
+        try(SurgeEngine engine = new SurgeEngine(12.0, 77.0, 0.01, ROWS, COLUMNS, 12, 0, 3.0)){
+            record(engine, 1);
+            int ticks = 200;
+            long begin = System.nanoTime();
+            for(int i = 0; i < ticks; i++){
+                engine.tick();
+            }
+            System.out.printf("tick: %.2f ms for %d zones%n", (System.nanoTime() - begin) / 1e6 / ticks,
+                    engine.zones());
+
+            int reads = 20_000_000;
+            double sink = 0;
+            begin = System.nanoTime();
+            for(int i = 0; i < reads; i++){
+                sink += engine.multiplier(i % engine.zones());
+            }
+            System.out.printf("read: %.1f ns/multiplier (checksum %.0f)%n",
+                    (double) (System.nanoTime() - begin) / reads, sink);
+        }
+    }
+
+    private static long record(SurgeEngine engine, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int t = 0; t < threads; t++){
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int zones = engine.zones();
+                for(int i = 0; i < EVENTS_PER_THREAD; i++){
+                    int zone = random.nextInt(zones);
+                    if((i & 3) == 0){
+                        engine.recordSupply(zone);
+                    } else {
+                        engine.recordDemand(zone);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
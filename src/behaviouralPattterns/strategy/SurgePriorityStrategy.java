@@ -0,0 +1,69 @@
+package behaviouralPattterns.strategy;
+
+class SurgePriorityStrategy implements MatchingStrategy {
+    // nearest drivers looked at per request, the one with the lowest surge weighted distance gets the ride
+    public static final int CANDIDATES = 4;
+
+    // per thread search arrays, so match() allocates nothing
+    private static final class Scratch{
+        final int[] ids = new int[CANDIDATES];
+        final double[] distancesKm = new double[CANDIDATES];
+        final double[] lats = new double[CANDIDATES];
+        final double[] lons = new double[CANDIDATES];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // demand/supply per zone, see SurgeEngine.java
+    private final SurgeEngine surge;
+    private final DriverIndex drivers;
+
+    public SurgePriorityStrategy(SurgeEngine surge, DriverIndex drivers) {
+        this.surge = surge;
+        this.drivers = drivers;
+    }
+
+    // current multiplier at the location, 1.0 = no surge
+    public double multiplier(long location) {
+        return surge.multiplier(surge.zoneOf(Location.lat(location), Location.lon(location)));
+    }
+
+    // true if riders at this location pay more than x1.0 right now
+    public boolean isSurging(long location) {
+        return multiplier(location) > 1.0;
+    }
+
+    /*
+     * The request counts as demand in its zone, which raises that zone's multiplier. Then the CANDIDATES nearest
+     * drivers are ranked by pickup distance * the multiplier of the zone the driver is in: a driver standing in a zone
+     * that surges is worth more there, so a slightly further driver from a calm zone is taken instead and the
+     * high-surge zones keep their drivers.
+     */
+    @Override
+    public int match(long location) {
+        double lat = Location.lat(location);
+        double lon = Location.lon(location);
+        surge.recordDemand(surge.zoneOf(lat, lon));
+        Scratch scratch = SCRATCH.get();
+        while (true) {
+            int found = drivers.nearest(lat, lon, CANDIDATES, scratch.ids, scratch.distancesKm, scratch.lats,
+                    scratch.lons);
+            if (found == 0) {
+                return NO_DRIVER;
+            }
+            int best = 0;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < found; i++) {
+                double cost = scratch.distancesKm[i] * surge.multiplier(surge.zoneOf(scratch.lats[i], scratch.lons[i]));
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = i;
+                }
+            }
+            // another rider may have claimed this driver between the query and now, then just look again
+            if (drivers.remove(scratch.ids[best])) {
+                return scratch.ids[best];
+            }
+        }
+    }
+}
@@ -82,74 +82,25 @@
 * */
 package builderPattern;
 
-import java.util.List;
-
-class BurgerMeal{
-    // Required
-    private final String bunType;
-    private final String patty;
-
-
-    // Optional
-    //    hasCheese,toppings,side,drink, withCheese, withToppings, withSide, build: create BurgerMeal
-    private final List<String> toppings;
-    private final String drink;
-    private final String side;
-    private final boolean hasCheese;
-
-    public BurgerMeal(BurgerMealBuilder builder) {
-        this.bunType = builder.bunType;
-        this.patty = builder.patty;
-        this.toppings = builder.toppings;
-        this.drink = builder.drink;
-        this.side = builder.side;
-        this.hasCheese = builder.hasCheese;
-    }
-
-    static class BurgerMealBuilder{
-        private final String bunType;
-        private final String patty;
-
-        // Optional
-        //    hasCheese,toppings,side,drink, withCheese, withToppings, withSide, build: create BurgerMeal
-        private List<String> toppings;
-        private String drink;
-        private String side;
-        private boolean hasCheese;
-
-        public BurgerMealBuilder(String bunType, String patty) {
-            this.bunType = bunType;
-            this.patty = patty;
-        }
-
-        public BurgerMealBuilder withCheese(boolean hasCheese) {
-            this.hasCheese = hasCheese;
-            return this;
-        }
-
-        public BurgerMealBuilder withToppings(List<String> toppings) {
-            this.toppings = toppings;
-            return this;
-        }
-
-        public BurgerMealBuilder withDrink(String drink) {
-            this.drink = drink;
-            return this;
-        }
-
-        public BurgerMealBuilder withSide(String side) {
-            this.side = side;
-            return this;
-        }
-
-        public BurgerMeal build(){
-            return new BurgerMeal(this);
-        }
-
-    }
-
-
-}
+/*
+ * =============================================================================================================================
+ * High-rate order intake: pooled builders, topping bitset, interned meals
+ * =============================================================================================================================
+ * At a million orders per second, new BurgerMealBuilder(...) + a new List<String> of toppings + a new BurgerMeal per order is
+ * a lot of short-lived garbage, while most orders repeat the same few menu combinations. So:
+ *      - Topping is an enum and the toppings of a meal are one int, bit i = Topping with ordinal i (no List, no Strings)
+ *      - BurgerMealBuilder.pooled(bun, patty) hands out the builder of the current thread, reset() for the new order,
+ *        instead of a new builder. It goes back to the pool in build().
+ *      - build() interns: identical meals are the same immutable BurgerMeal instance, found by comparing the builder's
+ *        fields with the table entry, so a repeated order allocates nothing at all.
+ *
+ * KIM: a pooled builder must not be used after build(), it belongs to the next order of that thread then. Asking for a
+ * pooled builder while the thread's one is still being filled (nested orders) gives a new, unpooled builder. An order
+ * that is abandoned before build() (validation failed, exception) must call release(), best in a finally block,
+ * otherwise the thread's builder stays "in use" and every later pooled() on that thread allocates a new builder. The
+ * intern table is bounded (INTERNED meals), meals that do not fit in it are built as new objects, still correct, just
+ * not shared.
+ * */
 
 public class BuilderPattern {
     public static void main(String[] args) {
@@ -158,5 +109,15 @@ public class BuilderPattern {
         BurgerMeal burgerMealWithCheeseAndFries = new BurgerMeal.BurgerMealBuilder("whole wheat","soyabeen")
                 .withSide("fries").withCheese(true).build();
         System.out.println(burgerMeal);
+        System.out.println(burgerMealWithCheeseAndFries);
+
+        // high-rate intake: the thread's pooled builder, toppings as enum bits, repeated meals are the same instance
+        BurgerMeal order = BurgerMeal.BurgerMealBuilder.pooled("whole wheat","soyabeen")
+                .withTopping(Topping.LETTUCE).withTopping(Topping.ONION).withCheese(true).build();
+        BurgerMeal sameOrder = BurgerMeal.BurgerMealBuilder.pooled("whole wheat","soyabeen")
+                .withTopping(Topping.ONION).withTopping(Topping.LETTUCE).withCheese(true).build();
+        System.out.println(order + ", interned: " + (order == sameOrder));
+        System.out.println("cheese burger interned: " + (burgerMealWithCheese == BurgerMeal.BurgerMealBuilder
+                .pooled("whole wheat","soyabeen").withCheese(true).build()));
     }
 }
@@ -0,0 +1,222 @@
+package builderPattern;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+final class BurgerMeal{
+    // size of the intern table (power of 2) and how many slots a lookup probes before giving up
+    private static final int INTERNED = 4096;
+    private static final int MAX_PROBES = 8;
+    private static final AtomicReferenceArray<BurgerMeal> INTERN_TABLE = new AtomicReferenceArray<>(INTERNED);
+
+    // Required
+    private final String bunType;
+    private final String patty;
+
+    // Optional
+    //    hasCheese,toppings,side,drink, withCheese, withToppings, withSide, build: create BurgerMeal
+    private final int toppings;
+    private final String drink;
+    private final String side;
+    private final boolean hasCheese;
+    private final int hash;
+
+    private BurgerMeal(BurgerMealBuilder builder, int hash) {
+        this.bunType = builder.bunType;
+        this.patty = builder.patty;
+        this.toppings = builder.toppings;
+        this.drink = builder.drink;
+        this.side = builder.side;
+        this.hasCheese = builder.hasCheese;
+        this.hash = hash;
+    }
+
+    // the shared meal for this configuration, lock-free, no allocation when it was built before
+    private static BurgerMeal intern(BurgerMealBuilder builder){
+        int hash = builder.configurationHash();
+        for(int probe = 0; probe < MAX_PROBES; probe++){
+            int slot = (hash + probe) & (INTERNED - 1);
+            BurgerMeal meal = INTERN_TABLE.get(slot);
+            if(meal == null){
+                BurgerMeal built = new BurgerMeal(builder, hash);
+                if(INTERN_TABLE.compareAndSet(slot, null, built)){
+                    return built;
+                }
+                // another thread filled the slot, it may be this very meal
+                meal = INTERN_TABLE.get(slot);
+            }
+            if(meal.hash == hash && meal.sameAs(builder)){
+                return meal;
+            }
+        }
+        return new BurgerMeal(builder, hash);
+    }
+
+    private boolean sameAs(BurgerMealBuilder builder){
+        return toppings == builder.toppings && hasCheese == builder.hasCheese && Objects.equals(bunType, builder.bunType)
+                && Objects.equals(patty, builder.patty) && Objects.equals(drink, builder.drink)
+                && Objects.equals(side, builder.side);
+    }
+
+    public String getBunType() {
+        return bunType;
+    }
+
+    public String getPatty() {
+        return patty;
+    }
+
+    public boolean hasTopping(Topping topping) {
+        return (toppings & topping.bit) != 0;
+    }
+
+    // a new EnumSet on every call, use hasTopping on hot paths
+    public EnumSet<Topping> getToppings() {
+        EnumSet<Topping> set = EnumSet.noneOf(Topping.class);
+        for(Topping topping : Topping.values()){
+            if(hasTopping(topping)){
+                set.add(topping);
+            }
+        }
+        return set;
+    }
+
+    public String getDrink() {
+        return drink;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public boolean hasCheese() {
+        return hasCheese;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof BurgerMeal)){
+            return false;
+        }
+        BurgerMeal meal = (BurgerMeal) other;
+        return hash == meal.hash && toppings == meal.toppings && hasCheese == meal.hasCheese
+                && Objects.equals(bunType, meal.bunType) && Objects.equals(patty, meal.patty)
+                && Objects.equals(drink, meal.drink) && Objects.equals(side, meal.side);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "BurgerMeal{bun=" + bunType + ", patty=" + patty + ", toppings=" + getToppings() + ", drink=" + drink
+                + ", side=" + side + ", cheese=" + hasCheese + "}";
+    }
+
+    static class BurgerMealBuilder{
+        private static final ThreadLocal<BurgerMealBuilder> POOL = ThreadLocal.withInitial(() -> {
+            BurgerMealBuilder builder = new BurgerMealBuilder(null, null);
+            builder.pooled = true;
+            return builder;
+        });
+
+        private String bunType;
+        private String patty;
+
+        // Optional
+        //    hasCheese,toppings,side,drink, withCheese, withToppings, withSide, build: create BurgerMeal
+        private int toppings;
+        private String drink;
+        private String side;
+        private boolean hasCheese;
+
+        private boolean pooled;
+        private boolean inUse;
+
+        public BurgerMealBuilder(String bunType, String patty) {
+            this.bunType = bunType;
+            this.patty = patty;
+        }
+
+        // the builder of the current thread, reset for a new order; a new builder if that one is still in use
+        public static BurgerMealBuilder pooled(String bunType, String patty) {
+            BurgerMealBuilder builder = POOL.get();
+            if(builder.inUse){
+                return new BurgerMealBuilder(bunType, patty);
+            }
+            builder.inUse = true;
+            return builder.reset(bunType, patty);
+        }
+
+        // starts a new order on this builder: new required fields, optional fields back to their defaults
+        public BurgerMealBuilder reset(String bunType, String patty) {
+            this.bunType = bunType;
+            this.patty = patty;
+            this.toppings = 0;
+            this.drink = null;
+            this.side = null;
+            this.hasCheese = false;
+            return this;
+        }
+
+        public BurgerMealBuilder withCheese(boolean hasCheese) {
+            this.hasCheese = hasCheese;
+            return this;
+        }
+
+        public BurgerMealBuilder withTopping(Topping topping) {
+            this.toppings |= topping.bit;
+            return this;
+        }
+
+        // varargs allocate an array per call, chain withTopping on hot paths
+        public BurgerMealBuilder withToppings(Topping... toppings) {
+            for(Topping topping : toppings){
+                withTopping(topping);
+            }
+            return this;
+        }
+
+        public BurgerMealBuilder withDrink(String drink) {
+            this.drink = drink;
+            return this;
+        }
+
+        public BurgerMealBuilder withSide(String side) {
+            this.side = side;
+            return this;
+        }
+
+        public BurgerMeal build(){
+            try {
+                return intern(this);
+            } finally {
+                inUse = false;
+            }
+        }
+
+        // gives a pooled builder back without building, for an order that is abandoned (in a finally block). A no-op
+        // for builders that are not pooled. Do not use the builder afterwards.
+        public void release(){
+            inUse = false;
+        }
+
+        private int configurationHash(){
+            int hash = Objects.hashCode(bunType);
+            hash = 31 * hash + Objects.hashCode(patty);
+            hash = 31 * hash + toppings;
+            hash = 31 * hash + Objects.hashCode(drink);
+            hash = 31 * hash + Objects.hashCode(side);
+            hash = 31 * hash + (hasCheese ? 1 : 0);
+            // spread the high bits, the table index only uses the low ones
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package builderPattern;
+
+/*
+ * =============================================================================================================================
+ * Benchmark: bytes allocated per order at 1M orders/s, version 2 builder vs pooled builder + topping bits + interned meals
+ * =============================================================================================================================
+ * Orders are drawn from a menu of 48 combinations (bun, patty, toppings, drink, side, cheese), like real intake where the same
+ * few meals repeat. Three ways to take an order:
+ *      1) version 2:   new builder + a new List<String> of toppings + a new BurgerMeal (kept below as LegacyBurgerMeal)
+ *      2) new builder: new BurgerMealBuilder, withTopping bits, build() interns
+ *      3) pooled:      BurgerMealBuilder.pooled, withTopping bits, build() interns
+ * Every path is run paced at ORDERS_PER_SECOND (batches of 1000 orders, then wait for the batch's millisecond to end) and
+ * reports bytes per order and the allocation rate, read from com.sun.management.ThreadMXBean.getThreadAllocatedBytes
+ * around the run. It is then run flat out for the highest order rate of one thread.
+ *
+ * KIM: plain main() harness with a warm-up round, not JMH (no JMH in this project). With JMH this is -prof gc and
+ * gc.alloc.rate / gc.alloc.rate.norm. The meals go into a sink array so the JIT can not drop them.
+ * */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BurgerMealAllocationBenchmark {
+    private static final int ORDERS_PER_SECOND = 1_000_000;
+    private static final int BATCH = 1_000;
+    private static final int PACED_SECONDS = 3;
+    private static final int FLAT_OUT_ORDERS = 5_000_000;
+    private static final int MENU = 48;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // BurgerMeal before this change (version 2), for the baseline
+    private static final class LegacyBurgerMeal{
+        private final String bunType;
+        private final String patty;
+        private final List<String> toppings;
+        private final String drink;
+        private final String side;
+        private final boolean hasCheese;
+
+        LegacyBurgerMeal(LegacyBuilder builder){
+            this.bunType = builder.bunType;
+            this.patty = builder.patty;
+            this.toppings = builder.toppings;
+            this.drink = builder.drink;
+            this.side = builder.side;
+            this.hasCheese = builder.hasCheese;
+        }
+    }
+
+    private static final class LegacyBuilder{
+        private final String bunType;
+        private final String patty;
+        private List<String> toppings;
+        private String drink;
+        private String side;
+        private boolean hasCheese;
+
+        LegacyBuilder(String bunType, String patty){
+            this.bunType = bunType;
+            this.patty = patty;
+        }
+
+        LegacyBuilder withCheese(boolean hasCheese){
+            this.hasCheese = hasCheese;
+            return this;
+        }
+
+        LegacyBuilder withToppings(List<String> toppings){
+            this.toppings = toppings;
+            return this;
+        }
+
+        LegacyBuilder withDrink(String drink){
+            this.drink = drink;
+            return this;
+        }
+
+        LegacyBuilder withSide(String side){
+            this.side = side;
+            return this;
+        }
+
+        LegacyBurgerMeal build(){
+            return new LegacyBurgerMeal(this);
+        }
+    }
+
+    // one way to take order number i of the menu, returns the meal
+    private interface Intake{
+        Object order(int i);
+    }
+
+    private static final String[] BUNS = {"wheat", "whole wheat", "brioche"};
+    private static final String[] PATTIES = {"veg", "soyabeen", "chicken", "paneer"};
+    private static final String[] DRINKS = {null, "coke", "lemonade"};
+    private static final String[] SIDES = {null, "fries", "salad"};
+    private static final Topping[][] TOPPINGS = {
+            {}, {Topping.LETTUCE}, {Topping.LETTUCE, Topping.TOMATO}, {Topping.ONION, Topping.PICKLES, Topping.JALAPENO},
+            {Topping.MUSHROOM, Topping.OLIVES, Topping.EXTRA_SAUCE, Topping.LETTUCE}};
+
+    // the menu, column by column
+    private static final String[] bun = new String[MENU];
+    private static final String[] patty = new String[MENU];
+    private static final String[] drink = new String[MENU];
+    private static final String[] side = new String[MENU];
+    private static final Topping[][] toppings = new Topping[MENU][];
+    private static final boolean[] cheese = new boolean[MENU];
+
+    private static final Object[] sink = new Object[1024];
+
+    public static void main(String[] args) {
+        Random random = new Random(11);
+        for(int i = 0; i < MENU; i++){
+            bun[i] = BUNS[random.nextInt(BUNS.length)];
+            patty[i] = PATTIES[random.nextInt(PATTIES.length)];
+            drink[i] = DRINKS[random.nextInt(DRINKS.length)];
+            side[i] = SIDES[random.nextInt(SIDES.length)];
+            toppings[i] = TOPPINGS[random.nextInt(TOPPINGS.length)];
+            cheese[i] = random.nextBoolean();
+        }
+        int[] orders = new int[1 << 16];
+        for(int i = 0; i < orders.length; i++){
+            orders[i] = random.nextInt(MENU);
+        }
+
+        Intake versionTwo = i -> {
+            List<String> names = new ArrayList<>();
+            for(Topping topping : toppings[i]){
+                names.add(topping.name());
+            }
+            return new LegacyBuilder(bun[i], patty[i]).withToppings(names).withDrink(drink[i]).withSide(side[i])
+                    .withCheese(cheese[i]).build();
+        };
+        Intake newBuilder = i -> {
+            BurgerMeal.BurgerMealBuilder builder = new BurgerMeal.BurgerMealBuilder(bun[i], patty[i]);
+            for(Topping topping : toppings[i]){
+                builder.withTopping(topping);
+            }
+            return builder.withDrink(drink[i]).withSide(side[i]).withCheese(cheese[i]).build();
+        };
+        Intake pooled = i -> {
+            BurgerMeal.BurgerMealBuilder builder = BurgerMeal.BurgerMealBuilder.pooled(bun[i], patty[i]);
+            for(Topping topping : toppings[i]){
+                builder.withTopping(topping);
+            }
+            return builder.withDrink(drink[i]).withSide(side[i]).withCheese(cheese[i]).build();
+        };
+
+        for(int round = 0; round < 2; round++){
+            boolean report = round == 1;
+            run("version 2", versionTwo, orders, report);
+            run("new builder", newBuilder, orders, report);
+            run("pooled", pooled, orders, report);
+        }
+    }
+
+    private static void run(String name, Intake intake, int[] orders, boolean report){
+        long threadId = Thread.currentThread().getId();
+        int total = ORDERS_PER_SECOND * PACED_SECONDS;
+        long batchNanos = 1_000_000_000L * BATCH / ORDERS_PER_SECOND;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        int behind = 0;
+        for(int done = 0; done < total; done += BATCH){
+            for(int i = done; i < done + BATCH; i++){
+                sink[i & (sink.length - 1)] = intake.order(orders[i & (orders.length - 1)]);
+            }
+            long deadline = begin + (done / BATCH + 1) * batchNanos;
+            if(System.nanoTime() > deadline){
+                behind++;
+            }
+            while(System.nanoTime() < deadline){
+                Thread.onSpinWait();
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long flatOutBegin = System.nanoTime();
+        for(int i = 0; i < FLAT_OUT_ORDERS; i++){
+            sink[i & (sink.length - 1)] = intake.order(orders[i & (orders.length - 1)]);
+        }
+        double flatOutSeconds = (System.nanoTime() - flatOutBegin) / 1e9;
+        if(report){
+            System.out.printf("%-12s %6.1f B/order  %7.1f MB/s at %.2f M orders/s (%d late batches) | flat out %5.1f M orders/s%n",
+                    name, (double) bytes / total, bytes / seconds / 1e6, total / seconds / 1e6, behind,
+                    FLAT_OUT_ORDERS / flatOutSeconds / 1e6);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package builderPattern;
+
+enum Topping{
+    LETTUCE, TOMATO, ONION, PICKLES, JALAPENO, MUSHROOM, OLIVES, EXTRA_SAUCE;
+
+    // this topping's bit in BurgerMeal's topping bitset
+    final int bit = 1 << ordinal();
+}